@@ -12,12 +12,9 @@ public class BatchJobListener implements JobExecutionListener {
 
     private static final Logger logger = LoggerFactory.getLogger(BatchJobListener.class);
 
-    private long startTime;
-
     // Trước khi job bắt đầu
     @Override
     public void beforeJob(JobExecution jobExecution) {
-        startTime = System.currentTimeMillis();
         logger.info("🚀 [Before Job] Bắt đầu chạy job: {}", jobExecution.getJobInstance().getJobName());
         logger.info("📅 Start time: {}", jobExecution.getStartTime());
     }
@@ -25,8 +22,8 @@ public class BatchJobListener implements JobExecutionListener {
     // Sau khi job hoàn thành
     @Override
     public void afterJob(JobExecution jobExecution) {
-        long endTime = System.currentTimeMillis();
-        long duration = (endTime - startTime) / 1000;
+        // Lấy startTime của chính execution này, listener là singleton dùng chung cho các job chạy song song
+        long duration = (System.currentTimeMillis() - jobExecution.getStartTime().getTime()) / 1000;
 
         if (jobExecution.getStatus() == BatchStatus.COMPLETED) {
             logger.info("✅ [After Job] Job '{}' hoàn thành thành công!", jobExecution.getJobInstance().getJobName());
@@ -0,0 +1,77 @@
+package com.example.demo.batch1;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs the delegate processor off the chunk thread: {@link #process} submits the item
+ * and returns its {@link Future} at once, so the items of a chunk are processed
+ * concurrently. Pair with {@link AsyncItemWriter}, which waits for the results in
+ * chunk order. At most {@code maxInFlight} items are processed at a time; the chunk
+ * thread blocks when the limit is reached.
+ * <p>
+ * Meant for I/O-bound processors (remote lookups, enrichment queries). The default
+ * executor starts one thread per item: a virtual thread on JDK 21+, a platform thread
+ * on older JDKs (Spring rejects virtual threads there). Step-scoped beans keep working
+ * inside the delegate: the step context is registered on the worker thread.
+ */
+public class AsyncItemProcessor<I, O> implements ItemProcessor<I, Future<O>> {
+
+    private final ItemProcessor<I, O> delegate;
+    private final Semaphore inFlight;
+    private TaskExecutor taskExecutor;
+
+    public AsyncItemProcessor(ItemProcessor<I, O> delegate, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.delegate = delegate;
+        this.inFlight = new Semaphore(maxInFlight);
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("async-item-");
+        // JDK < 21: VirtualThreadDelegate ném UnsupportedOperationException
+        executor.setVirtualThreads(Runtime.version().feature() >= 21);
+        this.taskExecutor = executor;
+    }
+
+    public void setTaskExecutor(TaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    @Override
+    public Future<O> process(I item) throws Exception {
+        inFlight.acquire();
+        StepExecution stepExecution = currentStepExecution();
+        FutureTask<O> task = new FutureTask<>(() -> {
+            if (stepExecution != null) {
+                StepSynchronizationManager.register(stepExecution);
+            }
+            try {
+                return delegate.process(item);
+            } finally {
+                if (stepExecution != null) {
+                    StepSynchronizationManager.close();
+                }
+                inFlight.release();
+            }
+        });
+        try {
+            taskExecutor.execute(task);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        return task;
+    }
+
+    private static StepExecution currentStepExecution() {
+        var context = StepSynchronizationManager.getContext();
+        return context != null ? context.getStepExecution() : null;
+    }
+}
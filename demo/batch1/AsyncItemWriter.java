@@ -0,0 +1,91 @@
+package com.example.demo.batch1;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Other half of {@link AsyncItemProcessor}: waits for the processed items in
+ * chunk order, drops the ones the processor filtered (null) and writes the rest
+ * with the delegate. A processing error is rethrown here, so the chunk fails as
+ * it would have inline.
+ * <p>
+ * Stream and step-listener callbacks are forwarded to the delegate. Items filtered
+ * by the delegate processor are not counted in the step's filter count, since the
+ * step only sees the futures.
+ */
+public class AsyncItemWriter<O> implements ItemStreamWriter<Future<O>>, StepExecutionListener {
+
+    private final ItemWriter<O> delegate;
+
+    public AsyncItemWriter(ItemWriter<O> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void write(Chunk<? extends Future<O>> chunk) throws Exception {
+        List<O> items = new ArrayList<>(chunk.size());
+        for (Future<O> future : chunk) {
+            O item;
+            try {
+                item = future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception ex) {
+                    throw ex;
+                }
+                throw e;
+            }
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        delegate.write(new Chunk<>(items));
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        if (delegate instanceof ItemStream stream) {
+            stream.open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        if (delegate instanceof ItemStream stream) {
+            stream.update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (delegate instanceof ItemStream stream) {
+            stream.close();
+        }
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        if (delegate instanceof StepExecutionListener listener) {
+            listener.beforeStep(stepExecution);
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (delegate instanceof StepExecutionListener listener) {
+            return listener.afterStep(stepExecution);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.demo.batch1;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.item.Chunk;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer listeners for batch jobs, steps, chunks and items, tagged by job and step:
+ * <ul>
+ *     <li>{@code batch.job}, {@code batch.step}: duration by status, from the execution's own start time</li>
+ *     <li>{@code batch.chunk}, {@code batch.chunk.commit}: chunk duration and the time between the
+ *     end of the write and the end of the chunk (stream update, commit)</li>
+ *     <li>{@code batch.item.read}, {@code batch.item.process}, {@code batch.chunk.write}: latency histograms</li>
+ *     <li>{@code batch.items} (read / written / filtered / skipped), {@code batch.errors}, {@code batch.retries}</li>
+ *     <li>{@code batch.step.items.per.second}, {@code batch.step.filter.ratio}: gauges of the running step</li>
+ * </ul>
+ * Item timings are kept per thread, so partitioned and multi-threaded steps are measured
+ * correctly. With {@link AsyncItemProcessor} the process timer only covers the submission.
+ */
+@Slf4j
+@Component
+public class BatchMetrics {
+
+    private final MeterRegistry registry;
+    private final long slowChunkNanos;
+
+    private final Map<String, StepMeters> steps = new ConcurrentHashMap<>();
+    private final ThreadLocal<ThreadTimings> timings = ThreadLocal.withInitial(ThreadTimings::new);
+
+    private final JobListener jobListener = new JobListener();
+    private final StepListener stepListener = new StepListener();
+    private final ChunkMetricsListener chunkListener = new ChunkMetricsListener();
+    private final ItemListener itemListener = new ItemListener();
+
+    public BatchMetrics(ObjectProvider<MeterRegistry> registry,
+                        @Value("${batch.metrics.slow-chunk-ms:5000}") long slowChunkMs) {
+        this.registry = registry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.slowChunkNanos = TimeUnit.MILLISECONDS.toNanos(slowChunkMs);
+    }
+
+    public JobExecutionListener jobListener() {
+        return jobListener;
+    }
+
+    /**
+     * Registers the step, chunk and item listeners on a chunk step.
+     */
+    @SuppressWarnings("unchecked")
+    public <I, O> SimpleStepBuilder<I, O> instrument(SimpleStepBuilder<I, O> step) {
+        step.listener((StepExecutionListener) stepListener);
+        step.listener((ChunkListener) chunkListener);
+        // Đăng ký 1 lần, chunk provider / processor tự nhận cả process / write listener
+        step.listener((ItemReadListener<Object>) itemListener);
+        return step;
+    }
+
+    /**
+     * Counts retries; register on fault-tolerant steps.
+     */
+    public RetryListener retryListener() {
+        return itemListener;
+    }
+
+    private StepMeters meters(StepExecution stepExecution) {
+        String job = stepExecution.getJobExecution().getJobInstance().getJobName();
+        String step = stepExecution.getStepName();
+        return steps.computeIfAbsent(job + "/" + step, k -> new StepMeters(Tags.of("job", job, "step", step)));
+    }
+
+    private static Duration elapsed(LocalDateTime start) {
+        return start != null ? Duration.between(start, LocalDateTime.now()) : Duration.ZERO;
+    }
+
+    private final class JobListener implements JobExecutionListener {
+
+        @Override
+        public void afterJob(JobExecution jobExecution) {
+            // Mỗi execution tự có startTime, không dùng field chung giữa các job chạy song song
+            Timer.builder("batch.job")
+                    .tags("job", jobExecution.getJobInstance().getJobName(),
+                            "status", jobExecution.getStatus().name())
+                    .register(registry)
+                    .record(elapsed(jobExecution.getStartTime()));
+        }
+    }
+
+    private final class StepListener implements StepExecutionListener {
+
+        @Override
+        public void beforeStep(StepExecution stepExecution) {
+            StepMeters meters = meters(stepExecution);
+            meters.current = stepExecution;
+            timings.get().meters = meters;
+        }
+
+        @Override
+        public ExitStatus afterStep(StepExecution stepExecution) {
+            StepMeters meters = meters(stepExecution);
+            Timer.builder("batch.step")
+                    .tags(meters.tags).tag("status", stepExecution.getStatus().name())
+                    .register(registry)
+                    .record(elapsed(stepExecution.getStartTime()));
+            if (meters.current == stepExecution) {
+                meters.current = null;
+            }
+            timings.remove();
+            return null;
+        }
+    }
+
+    private final class ChunkMetricsListener implements ChunkListener {
+
+        @Override
+        public void beforeChunk(ChunkContext context) {
+            ThreadTimings t = timings.get();
+            t.meters = meters(context.getStepContext().getStepExecution());
+            t.chunkStart = System.nanoTime();
+            t.writeEnd = 0;
+        }
+
+        @Override
+        public void afterChunk(ChunkContext context) {
+            ThreadTimings t = timings.get();
+            if (t.meters == null || t.chunkStart == 0) {
+                return;
+            }
+            long end = System.nanoTime();
+            long nanos = end - t.chunkStart;
+            t.meters.chunk.record(nanos, TimeUnit.NANOSECONDS);
+            if (t.writeEnd > 0) {
+                t.meters.commit.record(end - t.writeEnd, TimeUnit.NANOSECONDS);
+            }
+            if (nanos > slowChunkNanos) {
+                log.warn("Slow chunk in {}: {} ms", context.getStepContext().getStepName(),
+                        TimeUnit.NANOSECONDS.toMillis(nanos));
+            }
+            t.chunkStart = 0;
+        }
+
+        @Override
+        public void afterChunkError(ChunkContext context) {
+            ThreadTimings t = timings.get();
+            if (t.meters != null) {
+                t.meters.chunkErrors.increment();
+            }
+            t.chunkStart = 0;
+        }
+    }
+
+    private final class ItemListener implements ItemReadListener<Object>, ItemProcessListener<Object, Object>,
+            ItemWriteListener<Object>, SkipListener<Object, Object>, RetryListener {
+
+        @Override
+        public void beforeRead() {
+            timings.get().readStart = System.nanoTime();
+        }
+
+        @Override
+        public void afterRead(Object item) {
+            ThreadTimings t = timings.get();
+            if (t.meters != null) {
+                t.meters.read.record(System.nanoTime() - t.readStart, TimeUnit.NANOSECONDS);
+                t.meters.itemsRead.increment();
+            }
+        }
+
+        @Override
+        public void onReadError(Exception ex) {
+            ThreadTimings t = timings.get();
+            if (t.meters != null) {
+                t.meters.readErrors.increment();
+            }
+        }
+
+        @Override
+        public void beforeProcess(Object item) {
+            timings.get().processStart = System.nanoTime();
+        }
+
+        @Override
+        public void afterProcess(Object item, Object result) {
+            ThreadTimings t = timings.get();
+            if (t.meters != null) {
+                t.meters.process.record(System.nanoTime() - t.processStart, TimeUnit.NANOSECONDS);
+                if (result == null) {
+                    t.meters.itemsFiltered.increment();
+                }
+            }
+        }
+
+        @Override
+        public void onProcessError(Object item, Exception e) {
+            ThreadTimings t = timings.get();
+            if (t.meters != null) {
+                t.meters.processErrors.increment();
+            }
+        }
+
+        @Override
+        public void beforeWrite(Chunk<? extends Object> items) {
+            timings.get().writeStart = System.nanoTime();
+        }
+
+        @Override
+        public void afterWrite(Chunk<? extends Object> items) {
+            ThreadTimings t = timings.get();
+            long now = System.nanoTime();
+            t.writeEnd = now;
+            if (t.meters != null) {
+                t.meters.write.record(now - t.writeStart, TimeUnit.NANOSECONDS);
+                t.meters.itemsWritten.increment(items.size());
+            }
+        }
+
+        @Override
+        public void onWriteError(Exception exception, Chunk<? extends Object> items) {
+            ThreadTimings t = timings.get();
+            if (t.meters != null) {
+                t.meters.writeErrors.increment();
+            }
+        }
+
+        @Override
+        public void onSkipInRead(Throwable t) {
+            skipped();
+        }
+
+        @Override
+        public void onSkipInWrite(Object item, Throwable t) {
+            skipped();
+        }
+
+        @Override
+        public void onSkipInProcess(Object item, Throwable t) {
+            skipped();
+        }
+
+        private void skipped() {
+            ThreadTimings t = timings.get();
+            if (t.meters != null) {
+                t.meters.itemsSkipped.increment();
+            }
+        }
+
+        @Override
+        public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+            ThreadTimings t = timings.get();
+            if (t.meters != null) {
+                t.meters.retries.increment();
+            }
+        }
+    }
+
+    private final class StepMeters {
+
+        final Tags tags;
+        final Timer read;
+        final Timer process;
+        final Timer write;
+        final Timer chunk;
+        final Timer commit;
+        final Counter itemsRead;
+        final Counter itemsWritten;
+        final Counter itemsFiltered;
+        final Counter itemsSkipped;
+        final Counter readErrors;
+        final Counter processErrors;
+        final Counter writeErrors;
+        final Counter chunkErrors;
+        final Counter retries;
+
+        // Execution đang chạy của step, cho gauge
+        volatile StepExecution current;
+
+        StepMeters(Tags tags) {
+            this.tags = tags;
+            read = timer("batch.item.read");
+            process = timer("batch.item.process");
+            write = timer("batch.chunk.write");
+            chunk = timer("batch.chunk");
+            commit = timer("batch.chunk.commit");
+            itemsRead = items("read");
+            itemsWritten = items("written");
+            itemsFiltered = items("filtered");
+            itemsSkipped = items("skipped");
+            readErrors = errors("read");
+            processErrors = errors("process");
+            writeErrors = errors("write");
+            chunkErrors = errors("chunk");
+            retries = Counter.builder("batch.retries").tags(tags).register(registry);
+
+            Gauge.builder("batch.step.items.per.second", this, StepMeters::itemsPerSecond)
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("batch.step.filter.ratio", this, StepMeters::filterRatio)
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        private Timer timer(String name) {
+            return Timer.builder(name).tags(tags).publishPercentileHistogram().register(registry);
+        }
+
+        private Counter items(String outcome) {
+            return Counter.builder("batch.items").tags(tags).tag("outcome", outcome).register(registry);
+        }
+
+        private Counter errors(String phase) {
+            return Counter.builder("batch.errors").tags(tags).tag("phase", phase).register(registry);
+        }
+
+        double itemsPerSecond() {
+            StepExecution execution = current;
+            if (execution == null) {
+                return 0;
+            }
+            double seconds = elapsed(execution.getStartTime()).toNanos() / 1e9;
+            return seconds > 0 ? execution.getWriteCount() / seconds : 0;
+        }
+
+        double filterRatio() {
+            StepExecution execution = current;
+            if (execution == null || execution.getReadCount() == 0) {
+                return 0;
+            }
+            return (double) execution.getFilterCount() / execution.getReadCount();
+        }
+    }
+
+    private static final class ThreadTimings {
+        StepMeters meters;
+        long readStart;
+        long processStart;
+        long writeStart;
+        long writeEnd;
+        long chunkStart;
+    }
+}
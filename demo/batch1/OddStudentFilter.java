@@ -0,0 +1,26 @@
+package com.example.demo.batch1;
+
+import com.example.demo.dto.Student;
+import com.example.demo.excel.SourceFilter;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Keeps students with an odd number ("Student1", "Student3", ...).
+ */
+public class OddStudentFilter implements SourceFilter<Student> {
+
+    public static final OddStudentFilter INSTANCE = new OddStudentFilter();
+
+    @Override
+    public boolean test(Student student) {
+        String idStr = student.getName().replace("Student", "");
+        int id = Integer.parseInt(idStr);
+        return id % 2 != 0;
+    }
+
+    @Override
+    public LongPredicate keyPredicate() {
+        return id -> id % 2 != 0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.batch1;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Splits rows [0, count) into {@code gridSize} contiguous ranges.
+ * Each context holds {@code partition} (1-based), {@code offset} and {@code limit}.
+ */
+public class RangePartitioner implements Partitioner {
+
+    public static final String PARTITION = "partition";
+    public static final String OFFSET = "offset";
+    public static final String LIMIT = "limit";
+
+    private final long count;
+
+    public RangePartitioner(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        int partitions = (int) Math.max(1, Math.min(gridSize, count));
+        long size = count / partitions;
+        long remainder = count % partitions;
+
+        Map<String, ExecutionContext> result = new LinkedHashMap<>();
+        long offset = 0;
+        for (int i = 1; i <= partitions; i++) {
+            // Chia phần dư cho các partition đầu
+            long limit = size + (i <= remainder ? 1 : 0);
+            ExecutionContext context = new ExecutionContext();
+            context.putInt(PARTITION, i);
+            context.putLong(OFFSET, offset);
+            context.putLong(LIMIT, limit);
+            result.put(String.format("partition%04d", i), context);
+            offset += limit;
+        }
+        return result;
+    }
+}
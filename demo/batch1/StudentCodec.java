@@ -0,0 +1,42 @@
+package com.example.demo.batch1;
+
+import com.example.demo.dto.Student;
+import com.example.demo.excel.sort.RecordCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Spill format of {@link Student} for external sorts. Null fields are flagged.
+ */
+public class StudentCodec implements RecordCodec<Student> {
+
+    public static final StudentCodec INSTANCE = new StudentCodec();
+
+    @Override
+    public void write(Student s, DataOutput out) throws IOException {
+        out.writeBoolean(s.getName() != null);
+        if (s.getName() != null) {
+            out.writeUTF(s.getName());
+        }
+        out.writeBoolean(s.getSalary() != null);
+        if (s.getSalary() != null) {
+            // BigDecimal giữ nguyên scale
+            out.writeUTF(s.getSalary().toString());
+        }
+        out.writeBoolean(s.getAge() != null);
+        if (s.getAge() != null) {
+            out.writeInt(s.getAge());
+        }
+    }
+
+    @Override
+    public Student read(DataInput in) throws IOException {
+        String name = in.readBoolean() ? in.readUTF() : null;
+        BigDecimal salary = in.readBoolean() ? new BigDecimal(in.readUTF()) : null;
+        Integer age = in.readBoolean() ? in.readInt() : null;
+        return new Student(name, salary, age);
+    }
+}
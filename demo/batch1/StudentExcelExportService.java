@@ -2,12 +2,26 @@ package com.example.demo.batch1;
 
 import com.example.demo.dto.Student;
 import com.example.demo.excel.BaseExcelExportService;
-import org.apache.poi.ss.usermodel.Row;
+import com.example.demo.excel.ExcelRowWriter;
+import com.example.demo.excel.ExportCompression;
+import com.example.demo.excel.ExportEngine;
+import com.example.demo.excel.mapping.ColumnMapping;
 import org.springframework.stereotype.Service;
 
+import java.util.zip.Deflater;
+
 @Service
 public class StudentExcelExportService extends BaseExcelExportService<Student> {
 
+    private static final ColumnMapping<Student> COLUMNS = ColumnMapping.of(Student.class);
+
+    public StudentExcelExportService() {
+        // Ghi thẳng XML ra stream, client nhận byte ngay khi export đang chạy
+        setEngine(ExportEngine.STREAMING_XML);
+        // Nén sheet XML song song trên các core
+        setCompression(ExportCompression.parallel(Deflater.DEFAULT_COMPRESSION));
+    }
+
     @Override
     protected String getTemplatePath() {
         return "/templates/student_template.xlsx";
@@ -19,9 +33,12 @@ public class StudentExcelExportService extends BaseExcelExportService<Student> {
     }
 
     @Override
-    protected void writeDataRow(Student s, Row row) {
-        row.createCell(0).setCellValue(s.getName());
-        row.createCell(1).setCellValue(s.getSalary().doubleValue());
-        row.createCell(2).setCellValue(s.getAge());
+    protected ColumnMapping<Student> getColumnMapping() {
+        return COLUMNS;
+    }
+
+    @Override
+    protected void writeDataRow(Student student, ExcelRowWriter row) {
+        COLUMNS.write(student, row);
     }
 }
@@ -0,0 +1,154 @@
+package com.example.demo.batch1;
+
+import com.example.demo.dto.Student;
+import com.example.demo.excel.ExportFormat;
+import com.example.demo.excel.ExportJobRequest;
+import com.example.demo.excel.ExportJobService;
+import com.example.demo.excel.ExportJobStatus;
+import com.example.demo.excel.ExportResultCache;
+import com.example.demo.excel.ExportSession;
+import com.example.demo.excel.sort.ExternalSorter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/students")
+@RequiredArgsConstructor
+public class StudentExportController {
+
+    private static final int CHUNK_SIZE = 1000;
+    // Số row tối đa giữ trên heap khi sort, phần còn lại spill ra đĩa
+    private static final int SORT_MEMORY_ROWS = 100_000;
+
+    private final StudentExcelExportService excelService;
+    private final ExportJobService exportJobService;
+    private final ExportResultCache resultCache;
+
+    // Stream thẳng file về client, không ghi file tạm (trừ run của sort ngoài)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "10000") int rows,
+                                                        @RequestParam(defaultValue = "XLSX") ExportFormat format,
+                                                        @RequestParam(required = false) String sortBy,
+                                                        @RequestParam(defaultValue = "false") boolean desc) {
+        Comparator<Student> order = sortOrder(sortBy, desc);
+        StreamingResponseBody body = out -> {
+            try (ExportSession<Student> session = excelService.openSession(out, format, rows)) {
+                if (order == null) {
+                    for (int from = 1; from <= rows; from += CHUNK_SIZE) {
+                        session.append(students(from, Math.min(from + CHUNK_SIZE - 1, rows)));
+                    }
+                } else {
+                    try (ExternalSorter<Student> sorter = new ExternalSorter<>(StudentCodec.INSTANCE, order, SORT_MEMORY_ROWS)) {
+                        for (int from = 1; from <= rows; from += CHUNK_SIZE) {
+                            sorter.addAll(students(from, Math.min(from + CHUNK_SIZE - 1, rows)));
+                        }
+                        sorter.forEachChunk(CHUNK_SIZE, session::append);
+                    }
+                }
+                session.finish(out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("students." + format.getExtension()).build().toString())
+                .body(body);
+    }
+
+    // Cùng tham số → trả file đã sinh từ cache trên đĩa
+    @GetMapping("/export/cached")
+    public ResponseEntity<Resource> exportCached(@RequestParam(defaultValue = "10000") int rows,
+                                                 @RequestParam(defaultValue = "XLSX") ExportFormat format) throws IOException {
+        String key = resultCache.key(excelService, format, Map.of("rows", rows));
+        // Channel mở sẵn: file bị evict trong lúc tải vẫn đọc được tới hết
+        FileChannel file = resultCache.getOrCreate(key, format, excelService.getClass(), target -> {
+            try (ExportSession<Student> session = excelService.openSession(null, format, rows)) {
+                for (int from = 1; from <= rows; from += CHUNK_SIZE) {
+                    session.append(students(from, Math.min(from + CHUNK_SIZE - 1, rows)));
+                }
+                session.finish(target.toString());
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .contentLength(file.size())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("students." + format.getExtension()).build().toString())
+                .body(new InputStreamResource(Channels.newInputStream(file)));
+    }
+
+    @DeleteMapping("/export/cached")
+    public ResponseEntity<Void> invalidateCached() {
+        resultCache.invalidate(excelService.getClass());
+        return ResponseEntity.noContent().build();
+    }
+
+    // Export chạy nền, trả về id để hỏi tiến độ. Gửi lại cùng id để chạy tiếp sau restart
+    @PostMapping("/export/jobs")
+    public ResponseEntity<ExportJobStatus> submit(@RequestParam(defaultValue = "1000000") int rows,
+                                                  @RequestParam(defaultValue = "XLSX") ExportFormat format,
+                                                  @RequestParam(required = false) String id) {
+        String jobId = exportJobService.submit(excelService, new StudentSource(rows), ExportJobRequest.builder()
+                .id(id)
+                .baseName("students")
+                .format(format)
+                .build());
+        return ResponseEntity.accepted().body(exportJobService.status(jobId));
+    }
+
+    @GetMapping("/export/jobs/{id}")
+    public ResponseEntity<ExportJobStatus> status(@PathVariable String id) {
+        ExportJobStatus status = exportJobService.status(id);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/export/jobs/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable String id) {
+        return exportJobService.cancel(id) ? ResponseEntity.accepted().build() : ResponseEntity.notFound().build();
+    }
+
+    private static Comparator<Student> sortOrder(String sortBy, boolean desc) {
+        if (sortBy == null) {
+            return null;
+        }
+        Comparator<Student> order = switch (sortBy) {
+            case "name" -> Comparator.comparing(Student::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+            case "salary" -> Comparator.comparing(Student::getSalary, Comparator.nullsLast(Comparator.naturalOrder()));
+            case "age" -> Comparator.comparing(Student::getAge, Comparator.nullsLast(Comparator.naturalOrder()));
+            default -> throw new IllegalArgumentException("Cannot sort by " + sortBy);
+        };
+        return desc ? order.reversed() : order;
+    }
+
+    private List<Student> students(int from, int to) {
+        List<Student> chunk = new ArrayList<>(to - from + 1);
+        for (int i = from; i <= to; i++) {
+            chunk.add(new Student("Student" + i, new BigDecimal(1000 + i), i));
+        }
+        return chunk;
+    }
+}
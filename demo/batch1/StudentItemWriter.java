@@ -1,28 +1,29 @@
 package com.example.demo.batch1;
 
 import com.example.demo.dto.Student;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.batch.item.Chunk;
-import org.springframework.batch.item.ItemWriter;
+import com.example.demo.excel.ExcelItemWriter;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.util.List;
+import java.nio.file.Path;
 
-@Slf4j
+/**
+ * Writes the whole studentStep into one export ({@code students.xlsx}, or numbered
+ * parts past {@code batch.students.part-rows}). A restarted job resumes the file.
+ */
 @Component
-@RequiredArgsConstructor
-public class StudentItemWriter implements ItemWriter<Student> {
+@StepScope
+public class StudentItemWriter extends ExcelItemWriter<Student> {
 
-    private final StudentExcelExportService excelService;
-
-
-    @Override
-    public void write(Chunk<? extends Student> chunk) {
-        log.info("Total size: {}", chunk.getItems().size());
-        String outputFile = System.getProperty("java.io.tmpdir") + LocalDateTime.now().getNano() + "students.xlsx";
-        excelService.appendAndMaybeExport((List<Student>) chunk.getItems(), 1000, outputFile);
-        log.info("Excel exported to: {}", outputFile);
+    public StudentItemWriter(StudentExcelExportService excelService,
+                             @Value("${batch.students.output-dir:${java.io.tmpdir}/students-export}") String outputDir,
+                             @Value("${batch.students.part-rows:100000}") long partRows,
+                             @Value("#{stepExecution.jobExecution.jobInstance.instanceId}") Long jobInstanceId) {
+        super(excelService, StudentCodec.INSTANCE);
+        setName("studentItemWriter");
+        // Cùng job instance → cùng file, để restart ghi tiếp
+        setBaseFile(Path.of(outputDir, "students-" + jobInstanceId, "students.xlsx"));
+        setPartRows(partRows);
     }
 }
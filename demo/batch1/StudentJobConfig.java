@@ -1,23 +1,22 @@
 package com.example.demo.batch1;
 
 import com.example.demo.dto.Student;
+import com.example.demo.excel.ExportSource;
+import com.example.demo.excel.ExportSourceItemReader;
 import lombok.RequiredArgsConstructor;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.ItemReader;
-import org.springframework.batch.item.support.ListItemReader;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.PlatformTransactionManager;
 
-import java.math.BigDecimal;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.Future;
 
 @Configuration
 @EnableBatchProcessing
@@ -30,35 +29,63 @@ public class StudentJobConfig {
     private final StudentProcessor processor;
     private final StudentJobListener studentJobListener;
     private final StudentItemWriter writer;
+    private final BatchMetrics batchMetrics;
 
+    // Filter của processor được đẩy xuống source nếu source hỗ trợ, processor vẫn lọc lại
     @Bean
-    public ItemReader<Student> studentReader() {
-        List<Student> list = IntStream.rangeClosed(1, 10_000)
-                .mapToObj(i -> new Student(
-                        "Student" + i,
-                        new BigDecimal(1000 + i),
-                        i
-                ))
-                .collect(Collectors.toList());
+    public ExportSource<Student> studentSource(@Value("${batch.students.count:10000}") long count,
+                                               @Value("${batch.students.filter-pushdown:true}") boolean pushdown) {
+        StudentSource source = new StudentSource(count);
+        ExportSource<Student> filtered = pushdown ? source.filtered(processor.getFilter()) : null;
+        return filtered != null ? filtered : source;
+    }
 
-        return new ListItemReader<>(list);
+    // Sinh student theo từng trang khi step đọc, không dựng sẵn cả list
+    @Bean
+    @StepScope
+    public ExportSourceItemReader<Student> studentReader(ExportSource<Student> studentSource,
+                                                         @Value("${batch.students.fetch-size:1000}") int fetchSize) {
+        ExportSourceItemReader<Student> reader = new ExportSourceItemReader<>(studentSource);
+        reader.setName("studentReader");
+        reader.setFetchSize(fetchSize);
+        return reader;
     }
 
+    // async.enabled: process từng item trên virtual thread, writer nhận kết quả theo đúng thứ tự
     @Bean
-    public Step studentStep() {
-        return new StepBuilder("studentStep", jobRepository)
-                .<Student, Student>chunk(1000, transactionManager)
-                .reader(studentReader())
-                .processor(processor)
-                .writer(writer)
+    public Step studentStep(ExportSourceItemReader<Student> studentReader,
+                            @Value("${batch.students.async.enabled:false}") boolean async,
+                            @Value("${batch.students.async.max-in-flight:256}") int maxInFlight) {
+        StepBuilder step = new StepBuilder("studentStep", jobRepository);
+        if (async) {
+            return batchMetrics.instrument(step.<Student, Future<Student>>chunk(1000, transactionManager)
+                            .reader(studentReader)
+                            .processor(new AsyncItemProcessor<>(processor, maxInFlight))
+                            .writer(new AsyncItemWriter<>(writer)))
+                    .build();
+        }
+        return batchMetrics.instrument(step.<Student, Student>chunk(1000, transactionManager)
+                        .reader(studentReader)
+                        .processor(processor)
+                        .writer(writer))
                 .build();
     }
 
+    // partition.enabled: chia input cho nhiều worker, mỗi worker ghi 1 part (StudentPartitionConfig)
     @Bean
-    public Job studentJob() {
-        return new JobBuilder("studentJob", jobRepository)
-                .start(studentStep())
+    public Job studentJob(Step studentStep, Step studentPartitionStep, Step studentAggregateStep,
+                          @Value("${batch.students.partition.enabled:false}") boolean partitioned) {
+        JobBuilder job = new JobBuilder("studentJob", jobRepository);
+        if (partitioned) {
+            return job.start(studentPartitionStep)
+                    .next(studentAggregateStep)
+                    .listener(studentJobListener)
+                    .listener(batchMetrics.jobListener())
+                    .build();
+        }
+        return job.start(studentStep)
                 .listener(studentJobListener)
+                .listener(batchMetrics.jobListener())
                 .build();
     }
 }
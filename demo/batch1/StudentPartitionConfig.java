@@ -0,0 +1,181 @@
+package com.example.demo.batch1;
+
+import com.example.demo.dto.Student;
+import com.example.demo.excel.ExcelItemWriter;
+import com.example.demo.excel.ExportFormat;
+import com.example.demo.excel.ExportManifest;
+import com.example.demo.excel.ExportParts;
+import com.example.demo.excel.ExportSessionPool;
+import com.example.demo.excel.ExportSource;
+import com.example.demo.excel.ExportSourceItemReader;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Steps of the partitioned studentJob ({@code batch.students.partition.enabled=true}):
+ * the input is split into ranges, each worker reads / processes its range on its
+ * own thread and writes its own part ({@code students-part-0001.xlsx}, ...).
+ * A last step writes the manifest and bundles the parts.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class StudentPartitionConfig {
+
+    private static final String WORKER_STEP = "studentWorkerStep";
+    private static final String PART_WRITER = "studentPartWriter";
+    private static final String BASE_NAME = "students";
+
+    private final JobRepository jobRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final StudentProcessor processor;
+    private final StudentExcelExportService excelService;
+    private final ExportSource<Student> studentSource;
+    private final BatchMetrics batchMetrics;
+
+    @Value("${batch.students.partition.grid-size:4}")
+    private int gridSize;
+
+    @Value("${batch.students.output-dir:${java.io.tmpdir}/students-export}")
+    private String outputDir;
+
+    @Value("${batch.students.part-rows:100000}")
+    private long partRows;
+
+    // Pool riêng cho worker: mỗi worker giữ 1 slot suốt step, không tranh slot với export HTTP
+    private ExportSessionPool workerPool;
+
+    @PostConstruct
+    void init() {
+        workerPool = new ExportSessionPool(gridSize, 0);
+    }
+
+    // Virtual thread: worker chờ I/O không giữ thread của OS (cần JDK 21+)
+    @Bean
+    public TaskExecutor studentPartitionExecutor(@Value("${batch.students.partition.virtual-threads:false}") boolean virtualThreads) {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            log.warn("batch.students.partition.virtual-threads needs JDK 21+, running on {}: using platform threads",
+                    Runtime.version());
+            virtualThreads = false;
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("student-part-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setConcurrencyLimit(gridSize);
+        return executor;
+    }
+
+    @Bean
+    @StepScope
+    public ExportSourceItemReader<Student> studentPartitionReader(
+            @Value("${batch.students.fetch-size:1000}") int fetchSize,
+            @Value("#{stepExecutionContext['offset']}") long offset,
+            @Value("#{stepExecutionContext['limit']}") long limit) {
+        ExportSourceItemReader<Student> reader = new ExportSourceItemReader<>(studentSource);
+        reader.setName("studentPartitionReader");
+        reader.setFetchSize(fetchSize);
+        reader.setStartOffset(offset);
+        if (limit > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Partition of " + limit + " rows exceeds the reader limit of "
+                    + Integer.MAX_VALUE + ", increase batch.students.partition.grid-size");
+        }
+        reader.setMaxItemCount((int) limit);
+        return reader;
+    }
+
+    // Mỗi partition 1 export (chia part theo part-rows), restart partition nào thì ghi tiếp partition đó
+    @Bean
+    @StepScope
+    public ExcelItemWriter<Student> studentPartWriter(
+            @Value("#{stepExecution}") StepExecution stepExecution,
+            @Value("#{stepExecutionContext['partition']}") int partition) {
+        ExcelItemWriter<Student> writer = new ExcelItemWriter<>(excelService, StudentCodec.INSTANCE);
+        writer.setName(PART_WRITER);
+        writer.setBaseFile(partFile(jobDir(stepExecution), partition));
+        // Part hữu hạn: journal và lượng row dựng lại khi restart không vượt quá part-rows
+        writer.setPartRows(partRows);
+        writer.setSessionPool(workerPool);
+        return writer;
+    }
+
+    @Bean
+    public Step studentWorkerStep(ExportSourceItemReader<Student> studentPartitionReader,
+                                  ExcelItemWriter<Student> studentPartWriter) {
+        return batchMetrics.instrument(new StepBuilder(WORKER_STEP, jobRepository)
+                        .<Student, Student>chunk(1000, transactionManager)
+                        .reader(studentPartitionReader)
+                        .processor(processor)
+                        .writer(studentPartWriter))
+                .build();
+    }
+
+    @Bean
+    public Step studentPartitionStep(Step studentWorkerStep, TaskExecutor studentPartitionExecutor) {
+        // Executor và pool cùng giới hạn gridSize: worker không bao giờ phải chờ slot export
+        return new StepBuilder("studentPartitionStep", jobRepository)
+                .partitioner(WORKER_STEP, new RangePartitioner(studentSource.count()))
+                .step(studentWorkerStep)
+                .gridSize(gridSize)
+                .taskExecutor(studentPartitionExecutor)
+                .build();
+    }
+
+    // Gom các part: manifest + zip
+    @Bean
+    public Step studentAggregateStep() {
+        return new StepBuilder("studentAggregateStep", jobRepository)
+                .tasklet((contribution, chunkContext) -> {
+                    StepExecution current = chunkContext.getStepContext().getStepExecution();
+                    Path dir = jobDir(current);
+
+                    // Lần chạy gần nhất của từng partition (partition đã xong không chạy lại khi restart)
+                    JobInstance instance = current.getJobExecution().getJobInstance();
+                    Map<Path, Long> parts = new LinkedHashMap<>();
+                    for (String partition : new RangePartitioner(studentSource.count()).partition(gridSize).keySet()) {
+                        StepExecution worker = jobRepository.getLastStepExecution(instance, WORKER_STEP + ":" + partition);
+                        if (worker == null) {
+                            throw new IllegalStateException("No execution of " + WORKER_STEP + ":" + partition);
+                        }
+                        ExecutionContext context = worker.getExecutionContext();
+                        String[] files = context.getString(PART_WRITER + "." + ExcelItemWriter.OUTPUT_FILES).split(",");
+                        String[] rows = context.getString(PART_WRITER + "." + ExcelItemWriter.COMPLETED_PARTS).split(",");
+                        for (int i = 0; i < files.length; i++) {
+                            parts.put(dir.resolve(files[i]), Long.parseLong(rows[i]));
+                        }
+                    }
+                    ExportManifest manifest = ExportParts.complete(
+                            dir.resolve(BASE_NAME + "." + ExportFormat.XLSX.getExtension()), ExportFormat.XLSX, parts, true);
+                    log.info("Bundled {} parts, {} rows into {}", parts.size(), manifest.getTotalRows(), dir);
+                    return RepeatStatus.FINISHED;
+                }, transactionManager)
+                .build();
+    }
+
+    // 1 thư mục / job instance, chạy lại (restart) ghi vào cùng chỗ
+    private Path jobDir(StepExecution stepExecution) {
+        return Path.of(outputDir, BASE_NAME + "-" + stepExecution.getJobExecution().getJobInstance().getInstanceId());
+    }
+
+    private static Path partFile(Path dir, int partition) {
+        return dir.resolve(ExportParts.partFileName(BASE_NAME, partition, ExportFormat.XLSX));
+    }
+}
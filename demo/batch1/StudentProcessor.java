@@ -1,17 +1,26 @@
 package com.example.demo.batch1;
 
 import com.example.demo.dto.Student;
+import com.example.demo.excel.SourceFilter;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.stereotype.Component;
 
 @Component
 public class StudentProcessor implements ItemProcessor<Student, Student> {
 
+    private final SourceFilter<Student> filter = OddStudentFilter.INSTANCE;
+
+    /**
+     * Filter to push down into the reader's source; {@link #process} still applies it
+     * for sources that cannot.
+     */
+    public SourceFilter<Student> getFilter() {
+        return filter;
+    }
+
     @Override
     public Student process(Student student) {
-        String idStr = student.getName().replace("Student", "");
-        int id = Integer.parseInt(idStr);
-        if (id % 2 == 0) {
+        if (!filter.test(student)) {
             return null;
         }
 
@@ -0,0 +1,113 @@
+package com.example.demo.batch1;
+
+import com.example.demo.dto.Student;
+import com.example.demo.excel.ExportSource;
+import com.example.demo.excel.SourceFilter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Generated students "Student1".."StudentN", built page by page on demand.
+ * A filter on the student number is applied before the students are built.
+ */
+public class StudentSource implements ExportSource<Student> {
+
+    private static final int MAX_CURSORS = 256;
+
+    private final long count;
+    private final LongPredicate keyFilter;
+
+    // offset đã đọc tới → số thứ tự student kế tiếp; không gắn với thread nên không rò trên pool
+    private final ConcurrentSkipListMap<Long, Long> cursors = new ConcurrentSkipListMap<>();
+    private volatile long filteredCount = -1;
+
+    public StudentSource(long count) {
+        this(count, null);
+    }
+
+    private StudentSource(long count, LongPredicate keyFilter) {
+        this.count = count;
+        this.keyFilter = keyFilter;
+    }
+
+    @Override
+    public List<Student> fetch(long offset, int limit) {
+        if (keyFilter == null) {
+            long from = offset + 1;
+            long to = Math.min(offset + limit, count);
+            if (from > to) {
+                return List.of();
+            }
+            List<Student> page = new ArrayList<>((int) (to - from + 1));
+            for (long i = from; i <= to; i++) {
+                page.add(student(i));
+            }
+            return page;
+        }
+
+        // Tìm số thứ tự của row thứ offset sau khi lọc, từ cursor gần nhất phía trước,
+        // chỉ duyệt số, không tạo object
+        Map.Entry<Long, Long> start = cursors.floorEntry(offset);
+        if (start != null && start.getKey() == offset) {
+            // Reader đọc tuần tự: cursor của trang trước chỉ dùng 1 lần
+            cursors.remove(offset, start.getValue());
+        }
+        long position = start != null ? start.getKey() : 0;
+        long key = start != null ? start.getValue() : 1;
+        for (; key <= count && position < offset; key++) {
+            if (keyFilter.test(key)) {
+                position++;
+            }
+        }
+
+        List<Student> page = new ArrayList<>(limit);
+        for (; key <= count && page.size() < limit; key++) {
+            if (keyFilter.test(key)) {
+                page.add(student(key));
+            }
+        }
+        if (!page.isEmpty()) {
+            if (cursors.size() >= MAX_CURSORS) {
+                // Cursor của reader đã dừng giữa chừng: bỏ hết, chỉ mất lợi thế tìm nhanh
+                cursors.clear();
+            }
+            cursors.put(offset + page.size(), key);
+        }
+        return page;
+    }
+
+    @Override
+    public long count() {
+        if (keyFilter == null) {
+            return count;
+        }
+        if (filteredCount < 0) {
+            long n = 0;
+            for (long key = 1; key <= count; key++) {
+                if (keyFilter.test(key)) {
+                    n++;
+                }
+            }
+            filteredCount = n;
+        }
+        return filteredCount;
+    }
+
+    @Override
+    public ExportSource<Student> filtered(SourceFilter<? super Student> filter) {
+        LongPredicate predicate = filter.keyPredicate();
+        if (predicate == null) {
+            return null;
+        }
+        return new StudentSource(count, keyFilter != null ? keyFilter.and(predicate) : predicate);
+    }
+
+    private static Student student(long i) {
+        return new Student("Student" + i, BigDecimal.valueOf(1000 + i), (int) i);
+    }
+}
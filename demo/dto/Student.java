@@ -1,5 +1,6 @@
 package com.example.demo.dto;
 
+import com.example.demo.excel.mapping.ExcelColumn;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,8 +12,13 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class Student {
 
+    @ExcelColumn(index = 0, header = "Name")
     private String name;
+
+    @ExcelColumn(index = 1, header = "Salary")
     private BigDecimal salary;
+
+    @ExcelColumn(index = 2, header = "Age")
     private Integer age;
 
     public Student(String name, Integer age) {
@@ -1,126 +1,361 @@
 package com.example.demo.excel;
 
+import com.example.demo.excel.mapping.ColumnMapping;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Base of the template-driven exporters. Subclasses are stateless singletons:
+ * all per-export state lives in {@link ExportSession}.
+ * <p>
+ * The startExport / append / finish methods keep working for callers that
+ * export on a single thread; they use one session per calling thread. A failed
+ * append ends that session and frees its pool slot.
+ */
 public abstract class BaseExcelExportService<T> {
 
-    private SXSSFWorkbook workbook;
-    protected Sheet sheet;
-    protected int currentRowIndex;
+    private ExportEngine engine = ExportEngine.SXSSF;
+    private boolean autoWidth;
+    private ExportCompression compression = ExportCompression.DEFAULT;
+    private long maxRowsPerSheet = RollingPolicy.EXCEL_MAX_DATA_ROWS;
 
-    private final List<String> headerValues = new ArrayList<>();
-    private final List<CellStyle> headerStyles = new ArrayList<>();
+    private ExcelTemplateRegistry templateRegistry;
+    private ExportSessionPool sessionPool;
+    private SxssfTuner sxssfTuner;
 
-    private final List<T> bufferedRows = new ArrayList<>();
-    private int batchSize = 0;
-    private String exportFilePath;
+    // Session của API cũ (startExport/append/finish), 1 session / thread
+    private final ThreadLocal<ExportSession<T>> currentSession = new ThreadLocal<>();
 
     protected abstract String getTemplatePath();          // Template file
 
     protected abstract String getSheetName();              // Tên sheet
 
-    protected abstract void writeDataRow(T data, Row row); // Ghi 1 dòng data
+    /**
+     * Writes one data row; every engine and format goes through this method.
+     * Exporters with a column mapping delegate to {@link ColumnMapping#write}; on the
+     * SXSSF engine the POI row is available from {@link SxssfExportSink.PoiRowWriter}.
+     */
+    protected abstract void writeDataRow(T data, ExcelRowWriter row);
 
-    public void startExport() {
-        try (XSSFWorkbook templateWb = new XSSFWorkbook(
-                Objects.requireNonNull(getClass().getResourceAsStream(getTemplatePath()))
-        )) {
-            Sheet templateSheet = templateWb.getSheetAt(0);
-            Row templateHeader = templateSheet.getRow(0);
-
-            headerValues.clear();
-            headerStyles.clear();
-
-            for (Cell cell : templateHeader) {
-                headerValues.add(cell.getStringCellValue());
-                headerStyles.add(cell.getCellStyle());
-            }
+    /**
+     * Column mapping compiled from {@code @ExcelColumn} fields, or null when the
+     * subclass writes rows by hand.
+     */
+    protected ColumnMapping<T> getColumnMapping() {
+        return null;
+    }
+
+    public long getMaxRowsPerSheet() {
+        return maxRowsPerSheet;
+    }
+
+    /**
+     * Data rows per sheet; the next row starts a new sheet with the template header
+     * ("Students (2)", ...). Capped at the Excel limit of 1,048,575 data rows.
+     */
+    public void setMaxRowsPerSheet(long maxRowsPerSheet) {
+        if (maxRowsPerSheet <= 0) {
+            throw new IllegalArgumentException("maxRowsPerSheet must be positive");
+        }
+        this.maxRowsPerSheet = Math.min(maxRowsPerSheet, RollingPolicy.EXCEL_MAX_DATA_ROWS);
+    }
 
-            workbook = new SXSSFWorkbook(200);
-            workbook.setCompressTempFiles(true);
+    public ExportCompression getCompression() {
+        return compression;
+    }
 
-            sheet = workbook.createSheet(getSheetName());
+    /**
+     * Deflate level and parallelism of the XLSX entries (STREAMING_XML engine),
+     * e.g. {@link ExportCompression#parallel(int)} or {@link ExportCompression#storeOnly()}.
+     */
+    public void setCompression(ExportCompression compression) {
+        this.compression = compression;
+    }
 
-            // Clone header
-            Row headerRow = sheet.createRow(0);
-            for (int i = 0; i < headerValues.size(); i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headerValues.get(i));
+    /**
+     * Whether {@code appendAndMaybeExport} may buffer rows as captured cells
+     * ({@link ColumnarRowBuffer}) instead of keeping the DTOs. True when the exporter
+     * has a column mapping; override if a hand-written {@code writeDataRow} does not
+     * depend on the sink.
+     */
+    protected boolean supportsColumnarBuffer() {
+        return getColumnMapping() != null;
+    }
 
-                CellStyle newStyle = workbook.createCellStyle();
-                newStyle.cloneStyleFrom(headerStyles.get(i));
-                cell.setCellStyle(newStyle);
+    int bufferColumnCount() {
+        ColumnMapping<T> mapping = getColumnMapping();
+        return mapping != null ? mapping.getColumnCount() : 1;
+    }
+
+    /**
+     * Columns written through the shared-strings table (STREAMING_XML engine only).
+     * By default the {@code @ExcelColumn(sharedStrings = true)} columns of the mapping.
+     */
+    protected SharedStringsPolicy getSharedStrings() {
+        ColumnMapping<T> mapping = getColumnMapping();
+        if (mapping == null) {
+            return SharedStringsPolicy.NONE;
+        }
+        Set<Integer> columns = new HashSet<>();
+        for (ColumnMapping.Column column : mapping.getColumns()) {
+            if (column.isSharedStrings()) {
+                columns.add(column.getIndex());
             }
+        }
+        return columns.isEmpty() ? SharedStringsPolicy.NONE : SharedStringsPolicy.of(columns);
+    }
+
+    protected ExportEngine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(ExportEngine engine) {
+        this.engine = engine;
+    }
+
+    public boolean isAutoWidth() {
+        return autoWidth;
+    }
+
+    /**
+     * Sizes columns from a sample of the written values instead of the template widths
+     * (never narrower than the header). Cells written directly on a POI {@code Row}
+     * are not sampled.
+     */
+    public void setAutoWidth(boolean autoWidth) {
+        this.autoWidth = autoWidth;
+    }
+
+    @Autowired(required = false)
+    public void setTemplateRegistry(ExcelTemplateRegistry templateRegistry) {
+        this.templateRegistry = templateRegistry;
+    }
+
+    protected ExcelTemplateRegistry getTemplateRegistry() {
+        if (templateRegistry == null) {
+            // Dùng ngoài Spring (new trực tiếp)
+            templateRegistry = new ExcelTemplateRegistry();
+        }
+        return templateRegistry;
+    }
 
-            currentRowIndex = 1;
+    @Autowired(required = false)
+    public void setSessionPool(ExportSessionPool sessionPool) {
+        this.sessionPool = sessionPool;
+    }
+
+    protected ExportSessionPool getSessionPool() {
+        if (sessionPool == null) {
+            // Dùng ngoài Spring: không giới hạn
+            sessionPool = new ExportSessionPool(Integer.MAX_VALUE, 0);
+        }
+        return sessionPool;
+    }
+
+    @Autowired(required = false)
+    public void setSxssfTuner(SxssfTuner sxssfTuner) {
+        this.sxssfTuner = sxssfTuner;
+    }
+
+    protected SxssfTuner getSxssfTuner() {
+        if (sxssfTuner == null) {
+            // Dùng ngoài Spring: cấu hình mặc định, không quota
+            sxssfTuner = new SxssfTuner();
+        }
+        return sxssfTuner;
+    }
+
+    /**
+     * Opens an independent export. Blocks while the pool is full and throws
+     * {@link ExportRejectedException} if no slot frees up in time.
+     */
+    public ExportSession<T> openSession() {
+        return openSession(null);
+    }
+
+    /**
+     * Opens an export bound to {@code target}. With the STREAMING_XML engine the
+     * bytes are written to the stream while rows are appended; finish with
+     * {@link ExportSession#finish(OutputStream)} on the same stream.
+     */
+    public ExportSession<T> openSession(OutputStream target) {
+        return openSession(target, ExportFormat.XLSX);
+    }
+
+    /**
+     * Opens an export in the given format; the same row mapping feeds every format.
+     */
+    public ExportSession<T> openSession(OutputStream target, ExportFormat format) {
+        return openSession(target, format, 0);
+    }
+
+    /**
+     * Same as {@link #openSession(OutputStream, ExportFormat)} with the expected row
+     * count, used to size the SXSSF window (small exports stay fully in memory).
+     */
+    public ExportSession<T> openSession(OutputStream target, ExportFormat format, long expectedRows) {
+        return new ExportSession<>(this, getSessionPool(), target, format, expectedRows);
+    }
+
+    /**
+     * Same as {@link #openSession(OutputStream, ExportFormat, long)} with a slot taken
+     * from {@code pool}, e.g. a pool reserved for batch workers so they do not compete
+     * with HTTP exports.
+     */
+    public ExportSession<T> openSession(OutputStream target, ExportFormat format, long expectedRows,
+                                        ExportSessionPool pool) {
+        return new ExportSession<>(this, pool, target, format, expectedRows);
+    }
+
+    ExportSink openSink(OutputStream target, ExportFormat format, long expectedRows) {
+        ExcelTemplate template = withMappedHeaders(getTemplateRegistry().get(getClass(), getTemplatePath()));
+
+        ExportSink sink = format.createSink(getEngine(), new SinkOptions(expectedRows, getSxssfTuner(),
+                getSharedStrings(), isAutoWidth(), getCompression(), getMaxRowsPerSheet()));
+        try {
+            sink.open(template, getSheetName(), target);
         } catch (Exception e) {
-            throw new RuntimeException("Error reading template", e);
+            sink.close();
+            throw new RuntimeException("Error starting export", e);
         }
+        return sink;
     }
-    
-    public void appendAndMaybeExport(List<T> records, int n, String filePath) {
-        if (workbook == null) startExport();
-        this.batchSize = n;
-        this.exportFilePath = filePath;
-
-        for (T record : records) {
-            bufferedRows.add(record);
-            if (bufferedRows.size() >= batchSize) {
-                append(bufferedRows);
-                finish(exportFilePath);
-                bufferedRows.clear();
-                startExport();
+
+    // Header của @ExcelColumn thay text header của template
+    private ExcelTemplate withMappedHeaders(ExcelTemplate template) {
+        ColumnMapping<T> mapping = getColumnMapping();
+        if (mapping == null) {
+            return template;
+        }
+        Map<Integer, String> headers = new HashMap<>();
+        for (ColumnMapping.Column column : mapping.getColumns()) {
+            if (!column.getHeader().isEmpty()) {
+                headers.put(column.getIndex(), column.getHeader());
+            } else if (column.getIndex() >= template.getColumnCount()) {
+                headers.put(column.getIndex(), column.getProperty());
             }
         }
+        return headers.isEmpty() ? template : template.withHeaders(headers);
+    }
+
+    public void startExport() {
+        startExport(null);
+    }
+
+    public void startExport(OutputStream target) {
+        ExportSession<T> previous = currentSession.get();
+        if (previous != null) {
+            previous.close();
+        }
+        currentSession.set(openSession(target));
+    }
+
+    public void appendAndMaybeExport(List<T> records, int n, String filePath) {
+        if (currentSession.get() == null) startExport();
+        ExportSession<T> session = session();
+        try {
+            session.appendAndMaybeExport(records, n, filePath);
+        } catch (RuntimeException | Error e) {
+            // Export hỏng: trả slot của pool, caller không gọi finish nữa
+            endSession(session);
+            throw e;
+        }
     }
 
     // Ghi buffer còn lại khi kết thúc
     public void flushRemaining() {
-        if (!bufferedRows.isEmpty()) {
-            append(bufferedRows);
-            finish(exportFilePath);
-            bufferedRows.clear();
+        ExportSession<T> session = currentSession.get();
+        if (session == null) {
+            return;
+        }
+        try {
+            session.flushRemaining();
+        } finally {
+            endSession(session);
         }
     }
 
     public void append(List<T> records) {
-        for (T record : records) {
-            Row row = sheet.createRow(currentRowIndex++);
-            writeDataRow(record, row);
+        ExportSession<T> session = session();
+        try {
+            session.append(records);
+        } catch (RuntimeException | Error e) {
+            endSession(session);
+            throw e;
         }
     }
 
     public void finish(String filePath) {
-        File file = new File(filePath);
+        ExportSession<T> session = session();
+        try {
+            session.finish(filePath);
+        } finally {
+            endSession(session);
+        }
+    }
 
+    /**
+     * Writes the workbook to {@code out} (e.g. an HTTP response) instead of a file.
+     * The stream is flushed but not closed.
+     */
+    public void finish(OutputStream out) {
+        ExportSession<T> session = session();
         try {
-            if (file.exists()) file.delete();
+            session.finish(out);
+        } finally {
+            endSession(session);
+        }
+    }
 
-            try (FileOutputStream fos = new FileOutputStream(file)) {
-                workbook.write(fos);
-            }
+    /**
+     * Shared style for data cells of the given column, derived from template row 1.
+     * Only available with the SXSSF engine, while rows are being written.
+     */
+    protected CellStyle dataStyle(int column) {
+        return sxssfSink().dataStyle(column);
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Error writing Excel", e);
+    protected ExcelStylePool getStylePool() {
+        return sxssfSink().getStylePool();
+    }
 
-        } finally {
-            try {
-                workbook.dispose();
-                workbook.close();
-            } catch (Exception ignore) {
-            }
+    /**
+     * Creates a cell with the pooled data style of its column.
+     */
+    protected Cell createCell(Row row, int column) {
+        return sxssfSink().createCell(row, column);
+    }
+
+    private ExportSession<T> session() {
+        ExportSession<T> session = currentSession.get();
+        if (session == null) {
+            throw new IllegalStateException("Export is not started, call startExport() first");
         }
+        return session;
     }
-}
 
+    private void endSession(ExportSession<T> session) {
+        session.close();
+        currentSession.remove();
+    }
+
+    private SxssfExportSink sxssfSink() {
+        ExportSession<?> session = ExportSession.writing();
+        if (session == null) {
+            session = currentSession.get();
+        }
+        if (session != null && session.getSink() instanceof SxssfExportSink sxssf) {
+            return sxssf;
+        }
+        throw new IllegalStateException("Styles/cells are only available with the SXSSF engine");
+    }
+}
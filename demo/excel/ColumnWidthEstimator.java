@@ -0,0 +1,189 @@
+package com.example.demo.excel;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Approximate column widths from a reservoir sample of the cells of each column,
+ * instead of measuring every cell with AWT font metrics (autoSizeColumn).
+ * <p>
+ * Reservoir sampling uses Algorithm L: after the reservoir is full, the next sampled
+ * position is drawn ahead, so a cell that is not sampled costs one counter compare.
+ * A sampled value is measured by character class (narrow / normal / upper / wide),
+ * and the width is the 95th percentile of the samples, never below the header.
+ * Not thread-safe.
+ */
+final class ColumnWidthEstimator {
+
+    private static final int RESERVOIR_SIZE = 128;
+    private static final double PERCENTILE = 0.95;
+
+    // Đơn vị: số ký tự chuẩn (độ rộng chữ số)
+    private static final double PADDING_CHARS = 2;
+    private static final double MIN_CHARS = 4;
+    private static final double MAX_CHARS = 80;
+    private static final int MAX_MEASURED_CHARS = 255;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private Column[] columns = new Column[0];
+
+    void header(int column, String value) {
+        if (value != null) {
+            // Header thường in đậm
+            column(column).header = measure(value) * 1.1;
+        }
+    }
+
+    void string(int column, String value) {
+        if (value == null) {
+            return;
+        }
+        Column c = column(column);
+        int slot = c.nextSlot();
+        if (slot >= 0) {
+            c.samples[slot] = (float) measure(value);
+        }
+    }
+
+    void number(int column, long value) {
+        Column c = column(column);
+        int slot = c.nextSlot();
+        if (slot >= 0) {
+            c.samples[slot] = (float) measureInteger(value);
+        }
+    }
+
+    void number(int column, double value) {
+        Column c = column(column);
+        int slot = c.nextSlot();
+        if (slot >= 0) {
+            double abs = Math.abs(value);
+            // Phần nguyên + dấu phẩy thập phân + ~2 chữ số lẻ
+            c.samples[slot] = (float) (abs < 1e15
+                    ? measureInteger((long) value) + (value == Math.rint(value) ? 0 : 3)
+                    : 12);
+        }
+    }
+
+    int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Estimated width of {@code column} in POI units (1/256 of a character),
+     * or {@code fallback} when nothing was seen for it.
+     */
+    int width(int column, int fallback) {
+        if (column >= columns.length || columns[column] == null) {
+            return fallback;
+        }
+        Column c = columns[column];
+        double chars = c.header;
+        int n = c.filled;
+        if (n > 0) {
+            float[] sorted = Arrays.copyOf(c.samples, n);
+            Arrays.sort(sorted);
+            chars = Math.max(chars, sorted[(int) Math.min(n - 1, Math.floor(n * PERCENTILE))]);
+        }
+        chars = Math.min(MAX_CHARS, Math.max(MIN_CHARS, chars + PADDING_CHARS));
+        return (int) Math.round(chars * 256);
+    }
+
+    private Column column(int column) {
+        if (column >= columns.length) {
+            columns = Arrays.copyOf(columns, column + 1);
+        }
+        Column c = columns[column];
+        if (c == null) {
+            c = new Column();
+            columns[column] = c;
+        }
+        return c;
+    }
+
+    static double measure(String value) {
+        double width = 0;
+        int len = Math.min(value.length(), MAX_MEASURED_CHARS);
+        for (int i = 0; i < len; i++) {
+            width += charWidth(value.charAt(i));
+        }
+        return width;
+    }
+
+    private static double charWidth(char ch) {
+        if (ch >= '0' && ch <= '9') {
+            return 1.0;
+        }
+        if (ch < 0x80) {
+            switch (ch) {
+                case 'f', 'i', 'j', 'l', 'r', 't', 'I', '.', ',', ':', ';', '\'', '!', '|', ' ', '(', ')', '[', ']' -> {
+                    return 0.55;
+                }
+                case 'm', 'w', 'M', 'W', '@', '%' -> {
+                    return 1.5;
+                }
+                default -> {
+                    return ch >= 'A' && ch <= 'Z' ? 1.2 : 1.0;
+                }
+            }
+        }
+        // CJK, Hangul, fullwidth: 2 ô
+        if ((ch >= 0x1100 && ch <= 0x115F) || (ch >= 0x2E80 && ch <= 0xA4CF)
+                || (ch >= 0xAC00 && ch <= 0xD7A3) || (ch >= 0xF900 && ch <= 0xFAFF)
+                || (ch >= 0xFF00 && ch <= 0xFF60)) {
+            return 2.0;
+        }
+        // Chữ Latin có dấu (tiếng Việt, ...)
+        return 1.1;
+    }
+
+    private static double measureInteger(long value) {
+        int digits = 1;
+        for (long t = Math.abs(value); t >= 10; t /= 10) {
+            digits++;
+        }
+        // Dấu âm + dấu phân cách hàng nghìn
+        return digits + (digits - 1) / 3 * 0.55 + (value < 0 ? 1 : 0);
+    }
+
+    private final class Column {
+
+        final float[] samples = new float[RESERVOIR_SIZE];
+        int filled;
+        double header;
+
+        long seen;        // số cell đã qua
+        long next;        // vị trí cell được lấy mẫu tiếp theo
+        double w;
+
+        /**
+         * Reservoir slot for the current cell, or -1 if it is not sampled.
+         */
+        int nextSlot() {
+            long i = seen++;
+            if (filled < RESERVOIR_SIZE) {
+                int slot = filled++;
+                if (filled == RESERVOIR_SIZE) {
+                    w = Math.exp(Math.log(uniform()) / RESERVOIR_SIZE);
+                    next = i + skip() + 1;
+                }
+                return slot;
+            }
+            if (i != next) {
+                return -1;
+            }
+            w *= Math.exp(Math.log(uniform()) / RESERVOIR_SIZE);
+            next = i + skip() + 1;
+            return random.nextInt(RESERVOIR_SIZE);
+        }
+
+        // (0, 1]: tránh log(0)
+        private double uniform() {
+            return 1.0 - random.nextDouble();
+        }
+
+        private long skip() {
+            return (long) Math.floor(Math.log(uniform()) / Math.log(1 - w));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.demo.excel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows captured from {@link ExcelRowWriter} calls and replayed later, stored per
+ * column in primitive arrays instead of keeping the DTOs alive.
+ * Each cell costs 1 tag byte + 8 value bytes (long, double bits or string id).
+ * Strings are dictionary-encoded per column, so repeated values are held once;
+ * a column whose strings are mostly distinct (ids, names, ...) gains nothing from
+ * the dictionary and switches to a plain {@code String[]} for good.
+ * Memory while buffering is about rows × columns × 9 bytes + the strings.
+ * Not thread-safe.
+ */
+final class ColumnarRowBuffer implements ExcelRowWriter {
+
+    private static final byte EMPTY = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+
+    // Sau MIN_SAMPLE chuỗi, distinct/total vượt tỉ lệ này thì bỏ từ điển của cột
+    static final int MIN_SAMPLE = 1_024;
+    static final double MAX_DISTINCT_RATIO = 0.5;
+
+    private final int capacity;
+    private byte[][] tags;
+    private long[][] values;
+    private int size;
+
+    // Theo cột: từ điển, hoặc String[] khi cột có quá nhiều giá trị khác nhau
+    private Dictionary[] dictionaries;
+    private String[][] plainStrings;
+
+    ColumnarRowBuffer(int capacity, int columns) {
+        this.capacity = capacity;
+        this.tags = new byte[Math.max(columns, 1)][];
+        this.values = new long[tags.length][];
+        this.dictionaries = new Dictionary[tags.length];
+        this.plainStrings = new String[tags.length][];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size >= capacity;
+    }
+
+    /**
+     * Whether strings of {@code column} are dictionary-encoded (false once it fell back).
+     */
+    boolean isDictionaryEncoded(int column) {
+        return column < plainStrings.length && plainStrings[column] == null;
+    }
+
+    /**
+     * Starts a new buffered row; cells are set through this writer.
+     */
+    ExcelRowWriter nextRow() {
+        if (isFull()) {
+            throw new IllegalStateException("Row buffer is full (" + capacity + " rows)");
+        }
+        size++;
+        return this;
+    }
+
+    @Override
+    public void setString(int column, String value) {
+        if (value == null) {
+            return;
+        }
+        ensureColumn(column);
+        String[] plain = plainStrings[column];
+        if (plain != null) {
+            plain[size - 1] = value;
+            set(column, STRING, 0);
+            return;
+        }
+        Dictionary dictionary = dictionaries[column];
+        if (dictionary == null) {
+            dictionary = dictionaries[column] = new Dictionary();
+        }
+        set(column, STRING, dictionary.id(value));
+        // Buffer nhỏ hơn MIN_SAMPLE: quyết định sau 1 batch đầy
+        if (dictionary.lookups >= Math.min(MIN_SAMPLE, capacity)
+                && dictionary.strings.size() > dictionary.lookups * MAX_DISTINCT_RATIO) {
+            toPlainStrings(column);
+        }
+    }
+
+    @Override
+    public void setNumber(int column, double value) {
+        ensureColumn(column);
+        set(column, DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void setNumber(int column, long value) {
+        ensureColumn(column);
+        set(column, LONG, value);
+    }
+
+    /**
+     * Writes buffered row {@code row} to {@code out}, columns in ascending order.
+     */
+    void replay(int row, ExcelRowWriter out) {
+        for (int column = 0; column < tags.length; column++) {
+            byte[] columnTags = tags[column];
+            if (columnTags == null) {
+                continue;
+            }
+            long value = values[column][row];
+            switch (columnTags[row]) {
+                case STRING -> out.setString(column, plainStrings[column] != null
+                        ? plainStrings[column][row]
+                        : dictionaries[column].strings.get((int) value));
+                case LONG -> out.setNumber(column, value);
+                case DOUBLE -> out.setNumber(column, Double.longBitsToDouble(value));
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the buffered rows and strings; the arrays (and the per-column choice
+     * of dictionary vs plain strings) are kept for the next batch.
+     */
+    void clear() {
+        for (int column = 0; column < tags.length; column++) {
+            if (tags[column] != null) {
+                Arrays.fill(tags[column], 0, size, EMPTY);
+            }
+            if (plainStrings[column] != null) {
+                Arrays.fill(plainStrings[column], 0, size, null);
+            }
+            if (dictionaries[column] != null) {
+                dictionaries[column].clear();
+            }
+        }
+        size = 0;
+    }
+
+    private void ensureColumn(int column) {
+        if (column >= tags.length) {
+            tags = Arrays.copyOf(tags, column + 1);
+            values = Arrays.copyOf(values, column + 1);
+            dictionaries = Arrays.copyOf(dictionaries, column + 1);
+            plainStrings = Arrays.copyOf(plainStrings, column + 1);
+        }
+        if (tags[column] == null) {
+            // Cột chỉ được cấp phát khi có dữ liệu
+            tags[column] = new byte[capacity];
+            values[column] = new long[capacity];
+        }
+    }
+
+    private void set(int column, byte tag, long value) {
+        tags[column][size - 1] = tag;
+        values[column][size - 1] = value;
+    }
+
+    // Giải mã các dòng đã buffer của cột sang String[], từ đây không dùng từ điển nữa
+    private void toPlainStrings(int column) {
+        String[] plain = new String[capacity];
+        List<String> strings = dictionaries[column].strings;
+        byte[] columnTags = tags[column];
+        long[] columnValues = values[column];
+        for (int row = 0; row < size; row++) {
+            if (columnTags[row] == STRING) {
+                plain[row] = strings.get((int) columnValues[row]);
+            }
+        }
+        plainStrings[column] = plain;
+        dictionaries[column] = null;
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private int lookups;
+
+        int id(String value) {
+            lookups++;
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = strings.size();
+                strings.add(value);
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        void clear() {
+            ids.clear();
+            strings.clear();
+            lookups = 0;
+        }
+    }
+}
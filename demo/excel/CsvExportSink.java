@@ -0,0 +1,289 @@
+package com.example.demo.excel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link ExportSink} writing RFC 4180 CSV (optionally gzip-compressed).
+ * Values are UTF-8 encoded straight into one reusable {@link ByteBuffer} that is
+ * drained to a channel, so a row costs no Strings or byte[] allocations.
+ * Template styles and widths do not apply; the header row is kept.
+ */
+public class CsvExportSink implements ExportSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final boolean gzip;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CsvRowWriter rowWriter = new CsvRowWriter();
+
+    private Path tempFile;
+    private OutputStream target;
+    private WritableByteChannel channel;
+    private GZIPOutputStream gzipStream;
+    private CountingOutputStream counter;
+    private long bytesFlushed;
+
+    private int columnCount;
+    private boolean rowOpen;
+
+    public CsvExportSink(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    @Override
+    public void open(ExcelTemplate template, String sheetName, OutputStream target) throws IOException {
+        this.target = target;
+        this.columnCount = template.getColumnCount();
+
+        if (target == null) {
+            tempFile = Files.createTempFile("export-", gzip ? ".csv.gz" : ".csv");
+        }
+        if (gzip) {
+            OutputStream base = target != null ? target : Files.newOutputStream(tempFile);
+            counter = new CountingOutputStream(base);
+            gzipStream = new GZIPOutputStream(counter, BUFFER_SIZE);
+            channel = Channels.newChannel(gzipStream);
+        } else if (target != null) {
+            channel = Channels.newChannel(target);
+        } else {
+            channel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+        }
+
+        // Header
+        List<String> headerValues = template.getHeaderValues();
+        rowWriter.begin();
+        for (int i = 0; i < headerValues.size(); i++) {
+            rowWriter.setString(i, headerValues.get(i));
+        }
+        endRow();
+    }
+
+    @Override
+    public ExcelRowWriter nextRow() throws IOException {
+        endRow();
+        rowWriter.begin();
+        rowOpen = true;
+        return rowWriter;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return gzip ? counter.getCount() : bytesFlushed + buffer.position();
+    }
+
+    @Override
+    public void finish(OutputStream out) throws IOException {
+        if (target != null && out != target) {
+            throw new IllegalStateException("Export is bound to another output stream");
+        }
+        complete();
+        if (target != null) {
+            // Không close stream của caller
+            target.flush();
+            channel = null;
+            return;
+        }
+        Files.copy(tempFile, out);
+        out.flush();
+    }
+
+    @Override
+    public void finish(Path path) throws IOException {
+        if (target != null) {
+            throw new IllegalStateException("Export is bound to an output stream");
+        }
+        complete();
+        Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+        tempFile = null;
+    }
+
+    @Override
+    public void close() {
+        if (channel != null && target == null) {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+        }
+        channel = null;
+        if (tempFile != null) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignore) {
+            }
+            tempFile = null;
+        }
+    }
+
+    private void complete() throws IOException {
+        endRow();
+        drain();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        if (target == null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void endRow() throws IOException {
+        if (rowOpen || rowWriter.nextColumn > 0) {
+            // Đủ số cột của template
+            for (int k = rowWriter.nextColumn; k < columnCount; k++) {
+                if (k > 0) put((byte) ',');
+            }
+            put((byte) '\r');
+            put((byte) '\n');
+        }
+        rowOpen = false;
+        rowWriter.nextColumn = 0;
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put(b);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        bytesFlushed += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void putLong(long v) throws IOException {
+        if (v == Long.MIN_VALUE) {
+            putAscii(Long.toString(v));
+            return;
+        }
+        ensure(20);
+        if (v < 0) {
+            buffer.put((byte) '-');
+            v = -v;
+        }
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) {
+            digits++;
+        }
+        int start = buffer.position();
+        byte[] array = buffer.array();
+        for (int i = start + digits - 1; i >= start; i--) {
+            array[i] = (byte) ('0' + (v % 10));
+            v /= 10;
+        }
+        buffer.position(start + digits);
+    }
+
+    private void putAscii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            put((byte) s.charAt(i));
+        }
+    }
+
+    private void putText(String s) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (quote) put((byte) '"');
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            ensure(4);
+            if (c < 0x80) {
+                if (c == '"') buffer.put((byte) '"');
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xF0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        if (quote) put((byte) '"');
+    }
+
+    private final class CsvRowWriter implements ExcelRowWriter {
+
+        private int nextColumn;
+
+        void begin() {
+            nextColumn = 0;
+        }
+
+        private void moveTo(int column) throws IOException {
+            // Cột bị bỏ qua → field rỗng
+            for (int k = nextColumn; k <= column; k++) {
+                if (k > 0) put((byte) ',');
+            }
+            nextColumn = column + 1;
+        }
+
+        @Override
+        public void setString(int column, String value) {
+            try {
+                moveTo(column);
+                if (value != null) putText(value);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing CSV", e);
+            }
+        }
+
+        @Override
+        public void setNumber(int column, double value) {
+            try {
+                moveTo(column);
+                if (value == (long) value && Math.abs(value) < 1e15) {
+                    putLong((long) value);
+                } else if (Double.isFinite(value)) {
+                    putAscii(Double.toString(value));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing CSV", e);
+            }
+        }
+
+        @Override
+        public void setNumber(int column, long value) {
+            try {
+                moveTo(column);
+                putLong(value);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing CSV", e);
+            }
+        }
+    }
+}
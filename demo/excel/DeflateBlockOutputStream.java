@@ -0,0 +1,209 @@
+package com.example.demo.excel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Raw DEFLATE of one zip entry, sequential or block-parallel.
+ * <p>
+ * Parallel mode: data is cut into {@code blockSize} blocks, each deflated by its own
+ * {@link Deflater} with the previous 32 KB as preset dictionary and ended with a
+ * SYNC_FLUSH (the last one with FINISH), so the concatenated outputs form a single
+ * valid DEFLATE stream. At most {@code parallelism * 2} blocks are in flight; the
+ * writer thread blocks on the oldest one beyond that. CRC-32 is computed on the
+ * writer thread. {@link #finish()} does not close the target.
+ */
+final class DeflateBlockOutputStream extends OutputStream {
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private final OutputStream out;
+    private final int level;
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+
+    private final CRC32 crc = new CRC32();
+    private long uncompressedSize;
+    private long compressedSize;
+
+    // Tuần tự
+    private Deflater deflater;
+    private byte[] outBuf;
+
+    // Song song
+    private byte[] block;
+    private int blockPos;
+    private byte[] previousBlock;
+    private final ArrayDeque<ForkJoinTask<byte[]>> inFlight = new ArrayDeque<>();
+
+    private boolean finished;
+
+    DeflateBlockOutputStream(OutputStream out, ExportCompression compression) {
+        this.out = out;
+        this.level = compression.getLevel();
+        if (compression.isParallel()) {
+            this.pool = ForkJoinPool.commonPool();
+            this.maxInFlight = compression.getParallelism() * 2;
+            this.block = new byte[Math.max(compression.getBlockSize(), DICTIONARY_SIZE)];
+        } else {
+            this.pool = null;
+            this.maxInFlight = 0;
+            this.deflater = new Deflater(level, true);
+            this.outBuf = new byte[64 * 1024];
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("Entry already finished");
+        }
+        crc.update(b, off, len);
+        uncompressedSize += len;
+
+        if (pool == null) {
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                drain(Deflater.NO_FLUSH);
+            }
+            return;
+        }
+
+        while (len > 0) {
+            int n = Math.min(len, block.length - blockPos);
+            System.arraycopy(b, off, block, blockPos, n);
+            blockPos += n;
+            off += n;
+            len -= n;
+            if (blockPos == block.length) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    /**
+     * Completes the DEFLATE stream and writes everything still pending.
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (pool == null) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain(Deflater.NO_FLUSH);
+            }
+            deflater.end();
+            return;
+        }
+        submitBlock(true);
+        while (!inFlight.isEmpty()) {
+            writeOldest();
+        }
+    }
+
+    long getCrc() {
+        return crc.getValue();
+    }
+
+    long getUncompressedSize() {
+        return uncompressedSize;
+    }
+
+    long getCompressedSize() {
+        return compressedSize;
+    }
+
+    /**
+     * Frees the native deflater if the entry was abandoned.
+     */
+    void discard() {
+        finished = true;
+        if (deflater != null) {
+            deflater.end();
+        }
+        for (ForkJoinTask<byte[]> task : inFlight) {
+            task.cancel(false);
+        }
+        inFlight.clear();
+    }
+
+    private void drain(int flush) throws IOException {
+        int n = deflater.deflate(outBuf, 0, outBuf.length, flush);
+        if (n > 0) {
+            out.write(outBuf, 0, n);
+            compressedSize += n;
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        byte[] data = blockPos == block.length ? block : Arrays.copyOf(block, blockPos);
+        byte[] dictionary = previousBlock;
+        int lvl = level;
+        inFlight.add(pool.submit(() -> deflateBlock(data, dictionary, lvl, last)));
+
+        previousBlock = data;
+        block = new byte[block.length];
+        blockPos = 0;
+        while (inFlight.size() > maxInFlight) {
+            writeOldest();
+        }
+    }
+
+    private void writeOldest() throws IOException {
+        byte[] compressed;
+        try {
+            compressed = inFlight.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error compressing block", e.getCause());
+        }
+        out.write(compressed);
+        compressedSize += compressed.length;
+    }
+
+    private static byte[] deflateBlock(byte[] data, byte[] dictionary, int level, boolean last) {
+        Deflater def = new Deflater(level, true);
+        try {
+            if (dictionary != null) {
+                int dictLen = Math.min(DICTIONARY_SIZE, dictionary.length);
+                def.setDictionary(dictionary, dictionary.length - dictLen, dictLen);
+            }
+            def.setInput(data);
+            ByteArrayOutputStream result = new ByteArrayOutputStream(data.length / 4 + 64);
+            byte[] buf = new byte[32 * 1024];
+            if (last) {
+                def.finish();
+                while (!def.finished()) {
+                    result.write(buf, 0, def.deflate(buf));
+                }
+            } else {
+                // SYNC_FLUSH: block kết thúc ở ranh giới byte, nối được với block sau
+                int n;
+                do {
+                    n = def.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+                    result.write(buf, 0, n);
+                } while (n == buf.length || !def.needsInput());
+            }
+            return result.toByteArray();
+        } finally {
+            def.end();
+        }
+    }
+}
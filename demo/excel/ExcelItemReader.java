@@ -0,0 +1,286 @@
+package com.example.demo.excel;
+
+import com.example.demo.excel.mapping.ColumnMapping;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ParseException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ClassUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Reads the rows of an XLSX sheet into DTOs with constant memory per row.
+ * The sheet XML is pulled with StAX straight from the zip, one row at a time;
+ * cells are mapped by column index with the same {@code @ExcelColumn} metadata
+ * as the export side ({@link ColumnMapping}).
+ * <p>
+ * Only the shared-strings table of the file is kept in memory. Blank rows are
+ * skipped. The read count is saved in the {@code ExecutionContext}, so a restarted
+ * step continues after the last committed row.
+ */
+public class ExcelItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+    private static final XMLInputFactory XML_INPUT = XMLInputFactory.newFactory();
+
+    static {
+        // File upload: không cho DTD / external entity
+        XML_INPUT.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final ColumnMapping<T> mapping;
+
+    private Resource resource;
+    private int sheetIndex;
+    private int linesToSkip = 1;
+
+    private Path tempCopy;
+    private OPCPackage pkg;
+    private ReadOnlySharedStringsTable sharedStrings;
+    private InputStream sheetStream;
+    private XMLStreamReader xml;
+
+    // Giá trị của dòng hiện tại theo column index, dùng lại cho mọi dòng
+    private final String[] values;
+    private final StringBuilder text = new StringBuilder();
+    private int rowNumber;
+
+    public ExcelItemReader(Class<T> type) {
+        this(ColumnMapping.of(type));
+    }
+
+    public ExcelItemReader(ColumnMapping<T> mapping) {
+        this.mapping = mapping;
+        this.values = new String[mapping.getColumnCount()];
+        setName(ClassUtils.getShortName(ExcelItemReader.class));
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * 0-based index of the sheet to read (default the first one).
+     */
+    public void setSheetIndex(int sheetIndex) {
+        this.sheetIndex = sheetIndex;
+    }
+
+    /**
+     * Rows to skip at the top of the sheet (default 1: the header).
+     */
+    public void setLinesToSkip(int linesToSkip) {
+        this.linesToSkip = linesToSkip;
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        if (resource == null || !resource.exists()) {
+            throw new ItemStreamException("Input resource does not exist: " + resource);
+        }
+        File file;
+        if (resource.isFile()) {
+            file = resource.getFile();
+        } else {
+            // OPCPackage chỉ đọc zip theo từng entry khi mở từ file
+            tempCopy = Files.createTempFile("import-", ".xlsx");
+            try (InputStream in = resource.getInputStream()) {
+                Files.copy(in, tempCopy, StandardCopyOption.REPLACE_EXISTING);
+            }
+            file = tempCopy.toFile();
+        }
+
+        pkg = OPCPackage.open(file, PackageAccess.READ);
+        XSSFReader reader = new XSSFReader(pkg);
+        sharedStrings = new ReadOnlySharedStringsTable(pkg);
+
+        Iterator<InputStream> sheets = reader.getSheetsData();
+        for (int i = 0; i <= sheetIndex; i++) {
+            if (!sheets.hasNext()) {
+                throw new ItemStreamException("Sheet " + sheetIndex + " not found in " + resource);
+            }
+            InputStream sheet = sheets.next();
+            if (i < sheetIndex) {
+                sheet.close();
+            } else {
+                sheetStream = sheet;
+            }
+        }
+        xml = XML_INPUT.createXMLStreamReader(sheetStream);
+        rowNumber = 0;
+
+        for (int i = 0; i < linesToSkip; i++) {
+            if (!nextRowElement()) {
+                break;
+            }
+            skipElement();
+        }
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        if (!readRow()) {
+            return null;
+        }
+        T item = mapping.newInstance();
+        for (int column = 0; column < values.length; column++) {
+            try {
+                mapping.read(item, column, values[column]);
+            } catch (IllegalArgumentException e) {
+                throw new ParseException("Row " + rowNumber + ", column " + (column + 1)
+                        + ": cannot read '" + values[column] + "'", e);
+            }
+        }
+        return item;
+    }
+
+    // Restart: bỏ qua các dòng đã commit mà không tạo DTO
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        for (int i = 0; i < itemIndex; i++) {
+            if (!readRow()) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        try {
+            if (xml != null) {
+                xml.close();
+            }
+            if (sheetStream != null) {
+                sheetStream.close();
+            }
+            if (pkg != null) {
+                pkg.revert();
+            }
+        } finally {
+            xml = null;
+            sheetStream = null;
+            pkg = null;
+            sharedStrings = null;
+            if (tempCopy != null) {
+                Files.deleteIfExists(tempCopy);
+                tempCopy = null;
+            }
+        }
+    }
+
+    /**
+     * Fills {@link #values} with the next non-blank row; false at the end of the sheet.
+     */
+    private boolean readRow() throws XMLStreamException {
+        while (nextRowElement()) {
+            Arrays.fill(values, null);
+            boolean blank = true;
+            int nextColumn = 0;
+
+            while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                // <c r="B12" t="s"><v>3</v></c>
+                String ref = xml.getAttributeValue(null, "r");
+                int column = ref != null ? columnIndex(ref) : nextColumn;
+                nextColumn = column + 1;
+                String value = readCell(xml.getAttributeValue(null, "t"));
+                if (column < values.length && value != null && !value.isEmpty()) {
+                    values[column] = value;
+                    blank = false;
+                }
+            }
+            if (!blank) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean nextRowElement() throws XMLStreamException {
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("row")) {
+                String r = xml.getAttributeValue(null, "r");
+                rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("sheetData")) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // Đọc hết phần tử hiện tại (cell / row), trả về giá trị dạng text
+    private String readCell(String type) throws XMLStreamException {
+        String raw = null;
+        text.setLength(0);
+        int depth = 1;
+        boolean inText = false;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String name = xml.getLocalName();
+                // <v> hoặc <t> trong <is> (có thể nhiều run)
+                inText = name.equals("v") || name.equals("t");
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                inText = false;
+            } else if (inText && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+                text.append(xml.getText());
+            }
+        }
+        if (!text.isEmpty()) {
+            raw = text.toString();
+        }
+        if (raw == null || type == null) {
+            return raw;
+        }
+        return switch (type) {
+            case "s" -> sharedStrings.getItemAt(Integer.parseInt(raw)).getString();
+            case "b" -> raw.equals("1") ? "true" : "false";
+            case "e" -> null;
+            default -> raw;
+        };
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static int columnIndex(String ref) {
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+}
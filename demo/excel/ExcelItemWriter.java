@@ -0,0 +1,375 @@
+package com.example.demo.excel;
+
+import com.example.demo.excel.sort.RecordCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.util.ClassUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Step-long export writer: one export is opened in {@link #open}, every chunk is
+ * appended to it and the file is completed in {@link #afterStep} when the step succeeds.
+ * <p>
+ * Rows roll over to a new part every {@code partRows} rows (at a chunk boundary).
+ * The rows of the part in progress are also journaled through a {@link RecordCodec};
+ * the journal length, part index and row offset are saved in the
+ * {@code ExecutionContext} at each commit. A restarted step keeps the completed
+ * parts, rebuilds the current part from the committed journal and continues,
+ * instead of regenerating the whole export. The journal of a finished part is only
+ * deleted once a later commit has saved the next part index.
+ * <p>
+ * A single part is renamed to the base file ({@code students.xlsx}); several parts
+ * keep their numbered names and get a manifest. The writer must be registered as a
+ * step listener (chunk steps do so automatically): completing the export in
+ * {@code afterStep} lets a failure still mark the step FAILED, so it can be restarted.
+ */
+@Slf4j
+public class ExcelItemWriter<T> implements ItemStreamWriter<T>, StepExecutionListener {
+
+    public static final String PART_INDEX = "part.index";
+    public static final String PART_ROWS = "part.rows";
+    public static final String COMPLETED_PARTS = "completed.parts";
+    public static final String ROW_OFFSET = "row.offset";
+    public static final String JOURNAL_BYTES = "journal.bytes";
+    /**
+     * Comma-separated file names of the completed export, saved when the step completes.
+     */
+    public static final String OUTPUT_FILES = "output.files";
+
+    private static final int REPLAY_CHUNK = 1000;
+
+    private final BaseExcelExportService<T> exporter;
+    private final RecordCodec<T> codec;
+
+    private String name = ClassUtils.getShortName(ExcelItemWriter.class);
+    private Path baseFile;
+    private ExportFormat format = ExportFormat.XLSX;
+    private long partRows = 100_000;
+    private ExportSessionPool sessionPool;
+
+    private String baseName;
+    private int partIndex;
+    private long rowsInPart;
+    private final List<Long> completedParts = new ArrayList<>();
+    // Part đã xong nhưng journal chỉ được xóa sau lần commit kế tiếp
+    private int journalsToDelete;
+
+    private OutputStream out;
+    private ExportSession<T> session;
+    private FileChannel journal;
+    private DataOutputStream journalOut;
+
+    public ExcelItemWriter(BaseExcelExportService<T> exporter, RecordCodec<T> codec) {
+        this.exporter = exporter;
+        this.codec = codec;
+    }
+
+    /**
+     * Prefix of the keys in the {@code ExecutionContext}; must be unique within the step.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Final file, e.g. {@code out/students.xlsx}; parts are written next to it.
+     * Use a path that is stable across restarts of the same job instance.
+     */
+    public void setBaseFile(Path baseFile) {
+        this.baseFile = baseFile.toAbsolutePath();
+    }
+
+    public void setFormat(ExportFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Rows per part (default 100,000). This also bounds the journal replayed on restart.
+     */
+    public void setPartRows(long partRows) {
+        if (partRows <= 0) {
+            throw new IllegalArgumentException("partRows must be positive");
+        }
+        this.partRows = partRows;
+    }
+
+    /**
+     * Pool the writer takes its export slot from, instead of the exporter's shared pool.
+     * The slot is held for the whole step.
+     */
+    public void setSessionPool(ExportSessionPool sessionPool) {
+        this.sessionPool = sessionPool;
+    }
+
+    private String key(String suffix) {
+        return name + "." + suffix;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        if (baseFile == null) {
+            throw new ItemStreamException("baseFile is not set");
+        }
+        baseName = RollingExport.baseName(baseFile.getFileName().toString(), format);
+
+        partIndex = executionContext.getInt(key(PART_INDEX), 1);
+        rowsInPart = executionContext.getLong(key(PART_ROWS), 0);
+        completedParts.clear();
+        String completed = executionContext.getString(key(COMPLETED_PARTS), "");
+        if (!completed.isEmpty()) {
+            for (String rows : completed.split(",")) {
+                completedParts.add(Long.parseLong(rows));
+            }
+        }
+        long journalBytes = executionContext.getLong(key(JOURNAL_BYTES), 0);
+
+        try {
+            Files.createDirectories(baseFile.getParent());
+            // Part trước partIndex đã được commit: journal của chúng không còn cần
+            deleteJournalsBefore(partIndex);
+            openPart(journalBytes);
+        } catch (IOException e) {
+            throw new ItemStreamException("Cannot open export " + baseFile, e);
+        }
+        if (partIndex > 1 || rowsInPart > 0) {
+            log.info("Resumed export {} at part {}, row {}", baseFile, partIndex, rowOffset());
+        }
+    }
+
+    // Mở part hiện tại; restart: cắt journal về lần commit cuối rồi ghi lại các row đó
+    private void openPart(long journalBytes) throws IOException {
+        Path journalFile = journalFile(partIndex);
+        if (rowsInPart > 0 && (!Files.exists(journalFile) || Files.size(journalFile) < journalBytes)) {
+            throw new ItemStreamException("Journal " + journalFile + " is missing or shorter than the committed "
+                    + journalBytes + " bytes, part " + partIndex + " cannot be rebuilt");
+        }
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        journal.truncate(journalBytes);
+
+        out = Files.newOutputStream(partFile(partIndex));
+        session = sessionPool != null
+                ? exporter.openSession(out, format, partRows, sessionPool)
+                : exporter.openSession(out, format, partRows);
+
+        if (rowsInPart > 0) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+                List<T> replay = new ArrayList<>(REPLAY_CHUNK);
+                for (long i = 0; i < rowsInPart; i++) {
+                    replay.add(codec.read(in));
+                    if (replay.size() == REPLAY_CHUNK) {
+                        session.append(replay);
+                        replay = new ArrayList<>(REPLAY_CHUNK);
+                    }
+                }
+                session.append(replay);
+            }
+        }
+        journal.position(journalBytes);
+        journalOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(journal)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(Chunk<? extends T> chunk) throws Exception {
+        // Chunk trước (kể cả part.index mới) đã commit
+        if (journalsToDelete > 0) {
+            deleteJournalsBefore(partIndex);
+        }
+        if (session == null) {
+            // Part trước vừa đầy: mở part mới khi có row
+            openPart(0);
+        }
+        List<T> items = (List<T>) chunk.getItems();
+        session.append(items);
+        for (T item : items) {
+            codec.write(item, journalOut);
+        }
+        rowsInPart += items.size();
+
+        if (rowsInPart >= partRows) {
+            finishPart();
+        }
+    }
+
+    private void finishPart() throws IOException {
+        Path part = partFile(partIndex);
+        try {
+            session.finish(out);
+        } finally {
+            closePart();
+        }
+        log.info("Export part {} written to: {} ({} rows)", partIndex, part, rowsInPart);
+
+        completedParts.add(rowsInPart);
+        partIndex++;
+        rowsInPart = 0;
+        journalsToDelete++;
+    }
+
+    /**
+     * Makes the journal durable before the chunk commits, then saves the position.
+     */
+    @Override
+    public void update(ExecutionContext executionContext) {
+        long journalBytes = 0;
+        if (session != null) {
+            try {
+                journalOut.flush();
+                journal.force(false);
+                journalBytes = journal.position();
+            } catch (IOException e) {
+                throw new ItemStreamException("Cannot flush export journal", e);
+            }
+        }
+        executionContext.putInt(key(PART_INDEX), partIndex);
+        executionContext.putLong(key(PART_ROWS), rowsInPart);
+        executionContext.putString(key(COMPLETED_PARTS), joinRows(completedParts));
+        executionContext.putLong(key(ROW_OFFSET), rowOffset());
+        executionContext.putLong(key(JOURNAL_BYTES), journalBytes);
+    }
+
+    /**
+     * Completes the export while the step status can still change: if finishing,
+     * renaming or writing the manifest fails, the step is marked FAILED and stays
+     * restartable from the last commit.
+     */
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (stepExecution.getStatus().isUnsuccessful()) {
+            return null;
+        }
+        try {
+            List<Path> files = completeExport();
+            ExecutionContext context = stepExecution.getExecutionContext();
+            StringBuilder names = new StringBuilder();
+            for (Path file : files) {
+                names.append(names.isEmpty() ? "" : ",").append(file.getFileName());
+            }
+            context.putString(key(OUTPUT_FILES), names.toString());
+            context.putString(key(COMPLETED_PARTS), joinRows(completedParts));
+            context.putLong(key(ROW_OFFSET), rowOffset());
+            return null;
+        } catch (Exception e) {
+            log.error("Cannot complete export {}", baseFile, e);
+            stepExecution.setStatus(BatchStatus.FAILED);
+            stepExecution.addFailureException(e);
+            return ExitStatus.FAILED.addExitDescription(e);
+        }
+    }
+
+    // 1 part → đổi tên thành file gốc, nhiều part → manifest
+    private List<Path> completeExport() throws IOException {
+        // Không tạo part rỗng, trừ khi cả export không có row nào
+        if (session != null && (rowsInPart > 0 || completedParts.isEmpty())) {
+            finishPart();
+        }
+        List<Path> files = new ArrayList<>();
+        if (completedParts.size() == 1) {
+            Files.move(partFile(1), baseFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            files.add(baseFile);
+            log.info("Export written to: {} ({} rows)", baseFile, completedParts.get(0));
+        } else {
+            Map<Path, Long> parts = new LinkedHashMap<>();
+            for (int i = 0; i < completedParts.size(); i++) {
+                parts.put(partFile(i + 1), completedParts.get(i));
+            }
+            ExportManifest manifest = ExportParts.complete(baseFile, format, parts, false);
+            files.addAll(parts.keySet());
+            log.info("Export written to {} parts next to {} ({} rows)", parts.size(), baseFile, manifest.getTotalRows());
+        }
+        // Export đã xong: không còn gì để dựng lại
+        discardPart();
+        deleteJournalsBefore(partIndex + 1);
+        return files;
+    }
+
+    /**
+     * Releases the part in progress. Completing is done in {@link #afterStep}; an
+     * unfinished part is dropped here and its journal kept for the restart.
+     */
+    @Override
+    public void close() {
+        try {
+            discardPart();
+        } catch (IOException e) {
+            throw new ItemStreamException("Cannot close export " + baseFile, e);
+        }
+    }
+
+    private void discardPart() throws IOException {
+        if (session != null) {
+            closePart();
+            Files.deleteIfExists(partFile(partIndex));
+        }
+    }
+
+    private void closePart() throws IOException {
+        try {
+            session.close();
+            out.close();
+            journalOut.close();
+        } finally {
+            session = null;
+            out = null;
+            journalOut = null;
+            journal = null;
+        }
+    }
+
+    private void deleteJournalsBefore(int index) throws IOException {
+        for (int i = 1; i < index; i++) {
+            Files.deleteIfExists(journalFile(i));
+        }
+        journalsToDelete = 0;
+    }
+
+    private long rowOffset() {
+        long rows = rowsInPart;
+        for (long part : completedParts) {
+            rows += part;
+        }
+        return rows;
+    }
+
+    private Path partFile(int index) {
+        return baseFile.resolveSibling(RollingExport.partFileName(baseName, index, "." + format.getExtension()));
+    }
+
+    private Path journalFile(int index) {
+        return baseFile.resolveSibling(RollingExport.partFileName(baseName, index, ".journal"));
+    }
+
+    private static String joinRows(List<Long> rows) {
+        StringBuilder sb = new StringBuilder();
+        for (long r : rows) {
+            if (!sb.isEmpty()) {
+                sb.append(',');
+            }
+            sb.append(r);
+        }
+        return sb.toString();
+    }
+}
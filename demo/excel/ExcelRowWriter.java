@@ -0,0 +1,15 @@
+package com.example.demo.excel;
+
+/**
+ * Engine-neutral writer for one data row.
+ * Cells must be written in ascending column order; the data style of the
+ * column (template row 1) is applied automatically.
+ */
+public interface ExcelRowWriter {
+
+    void setString(int column, String value);
+
+    void setNumber(int column, double value);
+
+    void setNumber(int column, long value);
+}
@@ -0,0 +1,153 @@
+package com.example.demo.excel;
+
+import lombok.Value;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+
+/**
+ * Workbook-independent snapshot of a template cell style.
+ * Immutable, so it can be cached and shared between exports.
+ */
+@Value
+public class ExcelStyleDescriptor {
+
+    String dataFormat;
+    HorizontalAlignment alignment;
+    VerticalAlignment verticalAlignment;
+    boolean wrapText;
+
+    BorderStyle borderTop;
+    BorderStyle borderBottom;
+    BorderStyle borderLeft;
+    BorderStyle borderRight;
+
+    FillPatternType fillPattern;
+    short fillForegroundIndex;
+    String fillForegroundArgb;
+
+    String fontName;
+    short fontHeight;
+    boolean bold;
+    boolean italic;
+    short fontColorIndex;
+    String fontColorArgb;
+
+    public static ExcelStyleDescriptor from(CellStyle style, Workbook workbook) {
+        Font font = workbook.getFontAt(style.getFontIndex());
+
+        String fillArgb = null;
+        String fontArgb = null;
+        if (style instanceof XSSFCellStyle xssfStyle) {
+            fillArgb = argbOf(xssfStyle.getFillForegroundXSSFColor());
+        }
+        if (font instanceof XSSFFont xssfFont) {
+            fontArgb = argbOf(xssfFont.getXSSFColor());
+        }
+
+        return new ExcelStyleDescriptor(
+                style.getDataFormatString(),
+                style.getAlignment(),
+                style.getVerticalAlignment(),
+                style.getWrapText(),
+                style.getBorderTop(),
+                style.getBorderBottom(),
+                style.getBorderLeft(),
+                style.getBorderRight(),
+                style.getFillPattern(),
+                style.getFillForegroundColor(),
+                fillArgb,
+                font.getFontName(),
+                font.getFontHeight(),
+                font.getBold(),
+                font.getItalic(),
+                font.getColor(),
+                fontArgb
+        );
+    }
+
+    /**
+     * Creates a new style (and font) in the given workbook matching this descriptor.
+     */
+    public CellStyle applyTo(Workbook workbook) {
+        return applyTo(workbook, createFont(workbook));
+    }
+
+    /**
+     * Creates a new style using an already registered font.
+     */
+    public CellStyle applyTo(Workbook workbook, Font font) {
+        CellStyle style = workbook.createCellStyle();
+        style.setFont(font);
+
+        if (dataFormat != null && !"General".equals(dataFormat)) {
+            style.setDataFormat(workbook.createDataFormat().getFormat(dataFormat));
+        }
+        style.setAlignment(alignment);
+        style.setVerticalAlignment(verticalAlignment);
+        style.setWrapText(wrapText);
+
+        style.setBorderTop(borderTop);
+        style.setBorderBottom(borderBottom);
+        style.setBorderLeft(borderLeft);
+        style.setBorderRight(borderRight);
+
+        style.setFillPattern(fillPattern);
+        if (fillForegroundArgb != null && style instanceof XSSFCellStyle xssfStyle) {
+            xssfStyle.setFillForegroundColor(new XSSFColor(hexToBytes(fillForegroundArgb), null));
+        } else {
+            style.setFillForegroundColor(fillForegroundIndex);
+        }
+        return style;
+    }
+
+    public Font createFont(Workbook workbook) {
+        Font font = workbook.createFont();
+        font.setFontName(fontName);
+        font.setFontHeight(fontHeight);
+        font.setBold(bold);
+        font.setItalic(italic);
+        if (fontColorArgb != null && font instanceof XSSFFont xssfFont) {
+            xssfFont.setColor(new XSSFColor(hexToBytes(fontColorArgb), null));
+        } else {
+            font.setColor(fontColorIndex);
+        }
+        return font;
+    }
+
+    /**
+     * Font part of the descriptor, used to share fonts between styles.
+     */
+    public FontKey fontKey() {
+        return new FontKey(fontName, fontHeight, bold, italic, fontColorIndex, fontColorArgb);
+    }
+
+    @Value
+    public static class FontKey {
+        String fontName;
+        short fontHeight;
+        boolean bold;
+        boolean italic;
+        short fontColorIndex;
+        String fontColorArgb;
+    }
+
+    private static String argbOf(XSSFColor color) {
+        return color != null ? color.getARGBHex() : null;
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.excel;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-workbook pool of cell styles keyed by {@link ExcelStyleDescriptor}.
+ * Every distinct descriptor maps to exactly one CellStyle (and fonts are shared
+ * the same way), so styles.xml stays small no matter how many cells use them.
+ * Not thread-safe: a pool belongs to one workbook.
+ */
+public class ExcelStylePool {
+
+    private final Workbook workbook;
+    private final Map<ExcelStyleDescriptor, CellStyle> styles = new HashMap<>();
+    private final Map<ExcelStyleDescriptor.FontKey, Font> fonts = new HashMap<>();
+
+    public ExcelStylePool(Workbook workbook) {
+        this.workbook = workbook;
+    }
+
+    public CellStyle get(ExcelStyleDescriptor descriptor) {
+        if (descriptor == null) {
+            return null;
+        }
+        CellStyle style = styles.get(descriptor);
+        if (style == null) {
+            Font font = fonts.computeIfAbsent(descriptor.fontKey(), k -> descriptor.createFont(workbook));
+            style = descriptor.applyTo(workbook, font);
+            styles.put(descriptor, style);
+        }
+        return style;
+    }
+
+    public int size() {
+        return styles.size();
+    }
+}
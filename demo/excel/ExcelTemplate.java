@@ -0,0 +1,115 @@
+package com.example.demo.excel;
+
+import lombok.Getter;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsed header of an export template (values, widths, styles).
+ * Row 1 of the template, when present, gives the style of the data cells.
+ * Built once by {@link ExcelTemplateRegistry} and shared read-only.
+ */
+@Getter
+public class ExcelTemplate {
+
+    // 8.43 ký tự, mặc định của Excel
+    private static final int DEFAULT_COLUMN_WIDTH = 2048;
+
+    private final String path;
+    private final long lastModified;
+    private final List<String> headerValues;
+    private final List<ExcelStyleDescriptor> headerStyles;
+    private final List<ExcelStyleDescriptor> dataStyles;
+    private final int[] columnWidths;
+
+    // Lần kiểm tra resource gần nhất
+    private volatile long lastCheckedAt;
+
+    private ExcelTemplate(String path, long lastModified,
+                          List<String> headerValues,
+                          List<ExcelStyleDescriptor> headerStyles,
+                          List<ExcelStyleDescriptor> dataStyles,
+                          int[] columnWidths) {
+        this.path = path;
+        this.lastModified = lastModified;
+        this.headerValues = Collections.unmodifiableList(headerValues);
+        this.headerStyles = Collections.unmodifiableList(headerStyles);
+        this.dataStyles = Collections.unmodifiableList(dataStyles);
+        this.columnWidths = columnWidths;
+        this.lastCheckedAt = System.currentTimeMillis();
+    }
+
+    static ExcelTemplate parse(String path, long lastModified, InputStream in) throws IOException {
+        try (XSSFWorkbook templateWb = new XSSFWorkbook(in)) {
+            Sheet templateSheet = templateWb.getSheetAt(0);
+            Row templateHeader = templateSheet.getRow(0);
+
+            List<String> values = new ArrayList<>();
+            List<ExcelStyleDescriptor> styles = new ArrayList<>();
+            for (Cell cell : templateHeader) {
+                values.add(cell.getStringCellValue());
+                styles.add(ExcelStyleDescriptor.from(cell.getCellStyle(), templateWb));
+            }
+
+            // Style dòng data lấy từ row 1 của template (nếu có)
+            Row templateData = templateSheet.getRow(1);
+            List<ExcelStyleDescriptor> dataStyles = new ArrayList<>();
+            for (int i = 0; i < values.size(); i++) {
+                Cell cell = templateData != null ? templateData.getCell(i) : null;
+                dataStyles.add(cell != null ? ExcelStyleDescriptor.from(cell.getCellStyle(), templateWb) : null);
+            }
+
+            int[] widths = new int[values.size()];
+            for (int i = 0; i < widths.length; i++) {
+                widths[i] = templateSheet.getColumnWidth(i);
+            }
+
+            return new ExcelTemplate(path, lastModified, values, styles, dataStyles, widths);
+        }
+    }
+
+    public int getColumnCount() {
+        return headerValues.size();
+    }
+
+    /**
+     * Width in POI units (1/256 char); Excel's default width for columns past the template.
+     */
+    public int getColumnWidth(int column) {
+        return column < columnWidths.length ? columnWidths[column] : DEFAULT_COLUMN_WIDTH;
+    }
+
+    /**
+     * Copy with the header text of some columns replaced. Columns past the template
+     * are added with the style of the last header cell and the default width.
+     */
+    ExcelTemplate withHeaders(Map<Integer, String> headers) {
+        int count = headerValues.size();
+        for (int column : headers.keySet()) {
+            count = Math.max(count, column + 1);
+        }
+        List<String> values = new ArrayList<>(headerValues);
+        List<ExcelStyleDescriptor> styles = new ArrayList<>(headerStyles);
+        List<ExcelStyleDescriptor> data = new ArrayList<>(dataStyles);
+        while (values.size() < count) {
+            values.add("");
+            styles.add(styles.isEmpty() ? null : styles.get(styles.size() - 1));
+            data.add(null);
+        }
+        headers.forEach(values::set);
+        return new ExcelTemplate(path, lastModified, values, styles, data, columnWidths);
+    }
+
+    void markChecked(long now) {
+        this.lastCheckedAt = now;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.excel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of parsed export templates, keyed by template path.
+ * A template is parsed once and re-parsed only when its resource changes.
+ */
+@Slf4j
+@Component
+public class ExcelTemplateRegistry {
+
+    private static final long DEFAULT_CHECK_INTERVAL_MS = 5_000;
+
+    private final Map<String, ExcelTemplate> templates = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    private volatile long checkIntervalMillis = DEFAULT_CHECK_INTERVAL_MS;
+
+    public ExcelTemplate get(Class<?> owner, String templatePath) {
+        ExcelTemplate cached = templates.get(templatePath);
+        if (cached != null && isFresh(owner, cached)) {
+            hits.increment();
+            return cached;
+        }
+
+        return templates.compute(templatePath, (path, current) -> {
+            if (current != null && current != cached && isFresh(owner, current)) {
+                // Thread khác vừa load xong
+                hits.increment();
+                return current;
+            }
+            if (current == null) {
+                misses.increment();
+            } else {
+                reloads.increment();
+            }
+            return load(owner, path);
+        });
+    }
+
+    public void invalidate(String templatePath) {
+        templates.remove(templatePath);
+    }
+
+    public void invalidateAll() {
+        templates.clear();
+    }
+
+    public void setCheckIntervalMillis(long checkIntervalMillis) {
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getReloadCount() {
+        return reloads.sum();
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    private boolean isFresh(Class<?> owner, ExcelTemplate template) {
+        long now = System.currentTimeMillis();
+        if (now - template.getLastCheckedAt() < checkIntervalMillis) {
+            return true;
+        }
+
+        URL url = owner.getResource(template.getPath());
+        boolean fresh = url != null && lastModified(url) == template.getLastModified();
+        if (fresh) {
+            template.markChecked(now);
+        }
+        return fresh;
+    }
+
+    private ExcelTemplate load(Class<?> owner, String templatePath) {
+        URL url = owner.getResource(templatePath);
+        if (url == null) {
+            throw new IllegalStateException("Template not found: " + templatePath);
+        }
+
+        long start = System.nanoTime();
+        try (InputStream in = url.openStream()) {
+            ExcelTemplate template = ExcelTemplate.parse(templatePath, lastModified(url), in);
+            log.info("Loaded template {} ({} columns) in {} ms",
+                    templatePath, template.getColumnCount(), (System.nanoTime() - start) / 1_000_000);
+            return template;
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading template", e);
+        }
+    }
+
+    private static long lastModified(URL url) {
+        try {
+            if ("file".equals(url.getProtocol())) {
+                return Files.getLastModifiedTime(Path.of(url.toURI())).toMillis();
+            }
+            return url.openConnection().getLastModified();
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+}
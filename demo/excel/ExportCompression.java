@@ -0,0 +1,47 @@
+package com.example.demo.excel;
+
+import lombok.Value;
+
+import java.util.zip.Deflater;
+
+/**
+ * How the XLSX zip entries are deflated by the STREAMING_XML engine.
+ * With {@code parallelism > 1} the entry data is cut into blocks that are deflated
+ * concurrently on the common ForkJoinPool and stitched back into one stream (as pigz
+ * does); each block is primed with the last 32 KB of the previous one, so the ratio
+ * stays close to single-threaded DEFLATE.
+ */
+@Value
+public class ExportCompression {
+
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    public static final ExportCompression DEFAULT = new ExportCompression(Deflater.DEFAULT_COMPRESSION, 1, DEFAULT_BLOCK_SIZE);
+
+    // 0-9, hoặc Deflater.DEFAULT_COMPRESSION
+    int level;
+
+    // Số block nén cùng lúc; 1 = nén tuần tự trên thread ghi
+    int parallelism;
+
+    int blockSize;
+
+    /**
+     * Parallel deflate using all available cores.
+     */
+    public static ExportCompression parallel(int level) {
+        return new ExportCompression(level, Runtime.getRuntime().availableProcessors(), DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * No compression (deflate stored blocks): for internal transfers where CPU matters
+     * more than size. The file is still a regular XLSX.
+     */
+    public static ExportCompression storeOnly() {
+        return new ExportCompression(Deflater.NO_COMPRESSION, 1, DEFAULT_BLOCK_SIZE);
+    }
+
+    public boolean isParallel() {
+        return parallelism > 1;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.excel;
+
+/**
+ * Engine used to produce the XLSX file.
+ */
+public enum ExportEngine {
+
+    /**
+     * POI SXSSF: builds Row/Cell objects, flushes them to a temp file and re-zips on finish.
+     * The row window is sized by {@link SxssfTuner} when one is given.
+     */
+    SXSSF {
+        @Override
+        public ExportSink createSink(SinkOptions options) {
+            SxssfExportSink sink = options.getSxssfTuner() == null
+                    ? new SxssfExportSink(200)
+                    : new SxssfExportSink(options.getSxssfTuner(), options.getExpectedRows());
+            sink.setAutoWidth(options.isAutoWidth());
+            sink.setMaxRowsPerSheet(options.getMaxRowsPerSheet());
+            return sink;
+        }
+    },
+
+    /**
+     * Writes sheet XML straight into the ZIP stream, no per-cell objects.
+     * Supports a bounded shared-strings table for low-cardinality columns and
+     * block-parallel / store-only compression.
+     */
+    STREAMING_XML {
+        @Override
+        public ExportSink createSink(SinkOptions options) {
+            StreamingXlsxExportSink sink = new StreamingXlsxExportSink(options.getSharedStrings());
+            sink.setAutoWidth(options.isAutoWidth());
+            sink.setCompression(options.getCompression());
+            sink.setMaxRowsPerSheet(options.getMaxRowsPerSheet());
+            return sink;
+        }
+    };
+
+    public ExportSink createSink() {
+        return createSink(SinkOptions.DEFAULT);
+    }
+
+    public abstract ExportSink createSink(SinkOptions options);
+}
@@ -0,0 +1,33 @@
+package com.example.demo.excel;
+
+import lombok.Getter;
+
+/**
+ * Output format of an export, chosen per request.
+ * All formats are fed by the same writeDataRow / column mapping.
+ */
+@Getter
+public enum ExportFormat {
+
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+
+    CSV("csv", "text/csv"),
+
+    CSV_GZIP("csv.gz", "application/gzip");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    ExportSink createSink(ExportEngine engine, SinkOptions options) {
+        return switch (this) {
+            case XLSX -> engine.createSink(options);
+            case CSV -> new CsvExportSink(false);
+            case CSV_GZIP -> new CsvExportSink(true);
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.demo.excel;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.Future;
+
+/**
+ * Live progress of one async export job. Written by the worker thread,
+ * read by {@link ExportJobService#status(String)}.
+ */
+class ExportJob {
+
+    private final String id;
+    private final ExportJobRequest request;
+    private final Path directory;
+    private final long totalRows;
+
+    private volatile ExportJobState state = ExportJobState.QUEUED;
+    private volatile long rowsWritten;
+    private volatile long resumedFromRow;
+    private volatile long finishedPartBytes;
+    private volatile int partsCompleted;
+    private volatile ExportSession<?> session;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Path manifestFile;
+    private volatile String error;
+    private volatile boolean cancelled;
+    private volatile Future<?> future;
+
+    ExportJob(String id, ExportJobRequest request, Path directory, long totalRows) {
+        this.id = id;
+        this.request = request;
+        this.directory = directory;
+        this.totalRows = totalRows;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    ExportJobRequest getRequest() {
+        return request;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    ExportJobState getState() {
+        return state;
+    }
+
+    Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    void cancel() {
+        cancelled = true;
+        Future<?> f = future;
+        if (f != null && state == ExportJobState.QUEUED && f.cancel(false)) {
+            // Job chưa chạy
+            finished(ExportJobState.CANCELLED);
+        }
+    }
+
+    void started(long resumedFromRow, int partsCompleted, long finishedPartBytes) {
+        this.resumedFromRow = resumedFromRow;
+        this.rowsWritten = resumedFromRow;
+        this.partsCompleted = partsCompleted;
+        this.finishedPartBytes = finishedPartBytes;
+        this.startedAt = Instant.now();
+        this.state = ExportJobState.RUNNING;
+    }
+
+    void partStarted(ExportSession<?> session) {
+        this.session = session;
+    }
+
+    void rowsWritten(long count) {
+        rowsWritten += count;
+    }
+
+    void partFinished(long bytes) {
+        session = null;
+        finishedPartBytes += bytes;
+        partsCompleted++;
+    }
+
+    void completed(Path manifestFile) {
+        this.manifestFile = manifestFile;
+        finished(ExportJobState.COMPLETED);
+    }
+
+    void failed(Throwable e) {
+        this.error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        finished(ExportJobState.FAILED);
+    }
+
+    void finished(ExportJobState state) {
+        this.session = null;
+        this.finishedAt = Instant.now();
+        this.state = state;
+    }
+
+    ExportJobStatus snapshot() {
+        ExportJobStatus status = new ExportJobStatus();
+        status.setId(id);
+        status.setState(state);
+        status.setFormat(request.getFormat());
+        status.setTotalRows(totalRows);
+        status.setRowsWritten(rowsWritten);
+        status.setResumedFromRow(resumedFromRow);
+        status.setPartsCompleted(partsCompleted);
+        status.setBytesWritten(finishedPartBytes + currentPartBytes());
+        status.setStartedAt(startedAt != null ? startedAt.toString() : null);
+        status.setFinishedAt(finishedAt != null ? finishedAt.toString() : null);
+        status.setManifestFile(manifestFile != null ? manifestFile.toString() : null);
+        status.setError(error);
+
+        // Tốc độ tính trên số dòng của lần chạy này (không tính phần resume)
+        double rate = 0;
+        if (startedAt != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            double seconds = Math.max(1, end.toEpochMilli() - startedAt.toEpochMilli()) / 1000.0;
+            rate = (rowsWritten - resumedFromRow) / seconds;
+        }
+        status.setRowsPerSecond(rate);
+        status.setEtaSeconds(state == ExportJobState.RUNNING && totalRows >= 0 && rate > 0
+                ? (long) Math.ceil((totalRows - rowsWritten) / rate)
+                : -1);
+        return status;
+    }
+
+    private long currentPartBytes() {
+        ExportSession<?> current = session;
+        if (current == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, current.getSink().getBytesWritten());
+        } catch (IllegalStateException e) {
+            // Part vừa đóng
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.excel;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Parameters of an async export job.
+ */
+@Value
+@Builder
+public class ExportJobRequest {
+
+    // Id cố định để chạy tiếp job sau khi restart; null = sinh id mới
+    String id;
+
+    @Builder.Default
+    String baseName = "export";
+
+    @Builder.Default
+    ExportFormat format = ExportFormat.XLSX;
+
+    // Số dòng mỗi part = đơn vị checkpoint
+    @Builder.Default
+    long partRows = 100_000;
+
+    @Builder.Default
+    int pageSize = 1_000;
+}
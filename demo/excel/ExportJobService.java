@@ -0,0 +1,303 @@
+package com.example.demo.excel;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Runs exports in the background. {@link #submit} returns a job id right away;
+ * {@link #status(String)} reports rows, bytes, throughput and ETA.
+ * <p>
+ * A job writes numbered parts into {@code export.jobs.dir/<id>/} and, after each
+ * part, a checkpoint (the manifest so far). Submitting the same id again after a
+ * crash / restart skips the finished parts and continues from the next row.
+ */
+@Slf4j
+@Component
+public class ExportJobService {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final Pattern JOB_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String CHECKPOINT_FILE = "checkpoint.json";
+    private static final Duration KEEP_FINISHED = Duration.ofHours(1);
+
+    private final Path jobsDir;
+    private final ExecutorService executor;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public ExportJobService(@Value("${export.jobs.dir:}") String jobsDir,
+                            @Value("${export.jobs.threads:2}") int threads) {
+        this.jobsDir = jobsDir.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "export-jobs")
+                : Path.of(jobsDir);
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "export-job");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Part đang ghi bị bỏ, checkpoint giữ nguyên để chạy tiếp
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues an export of {@code source} through {@code exporter}.
+     * If a job with the same id is still running, its id is returned unchanged.
+     *
+     * @throws IllegalArgumentException if the id has a checkpoint written with a
+     *                                  different base name, format or part size
+     */
+    public <T> String submit(BaseExcelExportService<T> exporter, ExportSource<T> source, ExportJobRequest request) {
+        String id = request.getId() != null ? request.getId() : UUID.randomUUID().toString();
+        if (!JOB_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid export job id: " + id);
+        }
+        purgeFinished();
+
+        ExportJob job = new ExportJob(id, request, jobsDir.resolve(id), source.count());
+        // compute: kiểm tra job đang chạy và thay job cũ trong cùng một bước
+        ExportJob current = jobs.compute(id, (key, existing) -> {
+            if (existing != null && (existing.getState() == ExportJobState.QUEUED
+                    || existing.getState() == ExportJobState.RUNNING)) {
+                return existing;
+            }
+            checkResumable(job.getDirectory(), request);
+            return job;
+        });
+        if (current != job) {
+            return id;
+        }
+        job.setFuture(executor.submit(() -> run(job, exporter, source)));
+        return id;
+    }
+
+    /**
+     * Current status, or null if the id is unknown. Jobs not running in this
+     * process are reported from their files (COMPLETED / INTERRUPTED).
+     */
+    public ExportJobStatus status(String id) {
+        ExportJob job = jobs.get(id);
+        if (job != null) {
+            return job.snapshot();
+        }
+        if (!JOB_ID.matcher(id).matches()) {
+            return null;
+        }
+        return statusFromDisk(id);
+    }
+
+    public List<ExportJobStatus> list() {
+        List<ExportJobStatus> result = new ArrayList<>();
+        for (ExportJob job : jobs.values()) {
+            result.add(job.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * Stops the job after the current page. Finished parts and the checkpoint are kept.
+     */
+    public boolean cancel(String id) {
+        ExportJob job = jobs.get(id);
+        if (job == null) {
+            return false;
+        }
+        job.cancel();
+        return true;
+    }
+
+    private <T> void run(ExportJob job, BaseExcelExportService<T> exporter, ExportSource<T> source) {
+        ExportJobRequest request = job.getRequest();
+        Path dir = job.getDirectory();
+        String extension = "." + request.getFormat().getExtension();
+
+        try {
+            Files.createDirectories(dir);
+            Path manifestFile = dir.resolve(request.getBaseName() + "-manifest.json");
+            if (Files.exists(manifestFile)) {
+                // Đã xong ở lần chạy trước
+                ExportManifest done = MAPPER.readValue(manifestFile.toFile(), ExportManifest.class);
+                job.started(done.getTotalRows(), done.getParts().size(), partBytes(done));
+                job.completed(manifestFile);
+                return;
+            }
+
+            ExportManifest checkpoint = readCheckpoint(dir, request);
+            long offset = checkpoint.getTotalRows();
+            job.started(offset, checkpoint.getParts().size(), partBytes(checkpoint));
+            if (offset > 0) {
+                log.info("Export job {} resumes at row {} (part {})", job.getId(), offset, checkpoint.getParts().size() + 1);
+            }
+
+            boolean end = false;
+            while (!end) {
+                int index = checkpoint.getParts().size() + 1;
+                Path part = dir.resolve(RollingExport.partFileName(request.getBaseName(), index, extension));
+                long rows = 0;
+
+                try (ExportSession<T> session = exporter.openSession(null, request.getFormat(), request.getPartRows())) {
+                    job.partStarted(session);
+                    while (rows < request.getPartRows()) {
+                        if (job.isCancelled()) {
+                            job.finished(ExportJobState.CANCELLED);
+                            return;
+                        }
+                        int limit = (int) Math.min(request.getPageSize(), request.getPartRows() - rows);
+                        List<T> page = source.fetch(offset + rows, limit);
+                        if (page.isEmpty()) {
+                            end = true;
+                            break;
+                        }
+                        session.append(page);
+                        rows += page.size();
+                        job.rowsWritten(page.size());
+                    }
+                    if (rows == 0 && index > 1) {
+                        // Part trước kết thúc đúng ở dòng cuối
+                        break;
+                    }
+                    session.finish(part.toString());
+                }
+
+                long bytes = Files.size(part);
+                checkpoint.getParts().add(new ExportManifest.Part(index, part.getFileName().toString(), rows, bytes));
+                offset += rows;
+                checkpoint.setTotalRows(offset);
+                writeCheckpoint(dir, checkpoint);
+                job.partFinished(bytes);
+            }
+
+            MAPPER.writeValue(manifestFile.toFile(), checkpoint);
+            Files.deleteIfExists(dir.resolve(CHECKPOINT_FILE));
+            job.completed(manifestFile);
+            log.info("Export job {} completed: {} rows in {} parts", job.getId(), offset, checkpoint.getParts().size());
+
+        } catch (Exception e) {
+            log.error("Export job {} failed", job.getId(), e);
+            job.failed(e);
+        }
+    }
+
+    private ExportManifest readCheckpoint(Path dir, ExportJobRequest request) throws IOException {
+        Path file = dir.resolve(CHECKPOINT_FILE);
+        if (Files.exists(file)) {
+            ExportManifest checkpoint = MAPPER.readValue(file.toFile(), ExportManifest.class);
+            // Chỉ tin các part còn file trên đĩa
+            for (ExportManifest.Part part : checkpoint.getParts()) {
+                if (!Files.exists(dir.resolve(part.getFileName()))) {
+                    log.warn("Checkpoint of {} refers to missing part {}, starting over", dir, part.getFileName());
+                    return newCheckpoint(request);
+                }
+            }
+            return checkpoint;
+        }
+        return newCheckpoint(request);
+    }
+
+    private static void checkResumable(Path dir, ExportJobRequest request) {
+        Path file = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            file = dir.resolve(request.getBaseName() + "-manifest.json");
+            if (!Files.exists(file)) {
+                return;
+            }
+        }
+        ExportManifest previous;
+        try {
+            previous = MAPPER.readValue(file.toFile(), ExportManifest.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading checkpoint " + file, e);
+        }
+        // Part cũ chia theo tham số cũ: chạy tiếp với tham số khác sẽ lệch offset / lẫn format
+        if (!request.getBaseName().equals(previous.getBaseName())
+                || previous.getFormat() != null && previous.getFormat() != request.getFormat()
+                || previous.getPartRows() != null && previous.getPartRows() != request.getPartRows()) {
+            throw new IllegalArgumentException("Export job " + dir.getFileName() + " was started with baseName="
+                    + previous.getBaseName() + ", format=" + previous.getFormat() + ", partRows=" + previous.getPartRows()
+                    + "; resume it with the same parameters");
+        }
+    }
+
+    private static ExportManifest newCheckpoint(ExportJobRequest request) {
+        ExportManifest manifest = new ExportManifest();
+        manifest.setBaseName(request.getBaseName());
+        manifest.setFormat(request.getFormat());
+        manifest.setPartRows(request.getPartRows());
+        manifest.setCreatedAt(Instant.now().toString());
+        return manifest;
+    }
+
+    private static void writeCheckpoint(Path dir, ExportManifest checkpoint) throws IOException {
+        // Ghi file tạm rồi move để checkpoint không bao giờ bị ghi dở
+        Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        MAPPER.writeValue(tmp.toFile(), checkpoint);
+        Files.move(tmp, dir.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long partBytes(ExportManifest manifest) {
+        return manifest.getParts().stream().mapToLong(ExportManifest.Part::getBytes).sum();
+    }
+
+    private ExportJobStatus statusFromDisk(String id) {
+        Path dir = jobsDir.resolve(id);
+        Path checkpointFile = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            Path manifestFile = files.filter(p -> p.getFileName().toString().endsWith("-manifest.json"))
+                    .findFirst().orElse(null);
+
+            ExportJobStatus status = new ExportJobStatus();
+            status.setId(id);
+            status.setTotalRows(-1);
+            status.setEtaSeconds(-1);
+            ExportManifest manifest;
+            if (manifestFile != null) {
+                manifest = MAPPER.readValue(manifestFile.toFile(), ExportManifest.class);
+                status.setState(ExportJobState.COMPLETED);
+                status.setManifestFile(manifestFile.toString());
+            } else if (Files.exists(checkpointFile)) {
+                manifest = MAPPER.readValue(checkpointFile.toFile(), ExportManifest.class);
+                status.setState(ExportJobState.INTERRUPTED);
+            } else {
+                return null;
+            }
+            status.setRowsWritten(manifest.getTotalRows());
+            status.setPartsCompleted(manifest.getParts().size());
+            status.setBytesWritten(partBytes(manifest));
+            return status;
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading export job " + id, e);
+        }
+    }
+
+    private void purgeFinished() {
+        Instant limit = Instant.now().minus(KEEP_FINISHED);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(limit));
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.excel;
+
+public enum ExportJobState {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED,
+    // Có checkpoint nhưng job không chạy (app restart): submit lại cùng id để chạy tiếp
+    INTERRUPTED
+}
@@ -0,0 +1,28 @@
+package com.example.demo.excel;
+
+import lombok.Data;
+
+/**
+ * Snapshot of an async export job, safe to return from a controller.
+ */
+@Data
+public class ExportJobStatus {
+
+    private String id;
+    private ExportJobState state;
+    private ExportFormat format;
+
+    private long totalRows;          // -1 nếu source không biết trước
+    private long rowsWritten;
+    private long bytesWritten;
+    private int partsCompleted;
+    private long resumedFromRow;     // > 0 khi job chạy tiếp từ checkpoint
+
+    private String startedAt;
+    private String finishedAt;
+    private double rowsPerSecond;
+    private long etaSeconds;         // -1 nếu không tính được
+
+    private String manifestFile;
+    private String error;
+}
@@ -0,0 +1,39 @@
+package com.example.demo.excel;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes the parts of a rolling export, written next to them as JSON
+ * so consumers can fetch / process the parts in parallel.
+ */
+@Data
+public class ExportManifest {
+
+    private String baseName;
+    private String createdAt;
+    private long totalRows;
+    private List<Part> parts = new ArrayList<>();
+    private String bundle;
+
+    // Chỉ có trong checkpoint của ExportJobService: tham số phải giữ nguyên khi chạy tiếp
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ExportFormat format;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long partRows;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Part {
+        private int index;
+        private String fileName;
+        private long rows;
+        private long bytes;
+    }
+}
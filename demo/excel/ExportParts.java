@@ -0,0 +1,38 @@
+package com.example.demo.excel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Manifest and bundle for part files written outside an {@link ExportSession},
+ * e.g. one part per partition of a batch step. Same layout as a rolling export:
+ * {@code <base>-manifest.json} and optionally {@code <base>.zip} next to the parts.
+ */
+public final class ExportParts {
+
+    private ExportParts() {
+    }
+
+    /**
+     * @param baseFile base name and directory of the export, e.g. {@code out/students.xlsx}
+     * @param format   format of the parts; its extension is stripped from {@code baseFile}
+     * @param partRows part files in order, with their row counts
+     * @param bundle   also pack the parts and the manifest into {@code <base>.zip}
+     */
+    public static ExportManifest complete(Path baseFile, ExportFormat format, Map<Path, Long> partRows,
+                                          boolean bundle) throws IOException {
+        RollingExport rolling = new RollingExport(baseFile, format, RollingPolicy.builder().bundle(bundle).build());
+        for (Map.Entry<Path, Long> part : partRows.entrySet()) {
+            rolling.partFinished(part.getKey(), part.getValue());
+        }
+        return rolling.complete();
+    }
+
+    /**
+     * File name of part {@code index} (1-based): {@code students-part-0001.xlsx}.
+     */
+    public static String partFileName(String baseName, int index, ExportFormat format) {
+        return RollingExport.partFileName(baseName, index, "." + format.getExtension());
+    }
+}
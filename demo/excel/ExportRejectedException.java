@@ -0,0 +1,12 @@
+package com.example.demo.excel;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ExportRejectedException extends RuntimeException {
+
+    public ExportRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,358 @@
+package com.example.demo.excel;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Finished export files on disk, keyed by a hash of exporter type, template version,
+ * sink options, format and query parameters. Repeat requests are served from disk; concurrent
+ * identical requests wait for a single generation.
+ * <p>
+ * Least recently used files are evicted when the cache exceeds
+ * {@code export.cache.max-bytes} or {@code export.cache.max-entries}.
+ * A new template version changes the key, so stale files are never served
+ * and age out through LRU. File names carry a tag of the exporter type
+ * ({@code <type>-<key>.<ext>}), so invalidation by exporter also covers files
+ * re-indexed after a restart.
+ * <p>
+ * Callers get an open channel: a file evicted or invalidated while it is being
+ * downloaded is unlinked, but stays readable through the channel until it is closed.
+ */
+@Slf4j
+@Component
+public class ExportResultCache {
+
+    /**
+     * Writes the export to {@code target}.
+     */
+    @FunctionalInterface
+    public interface Generator {
+        void generate(Path target) throws IOException;
+    }
+
+    private static final int TYPE_TAG_LENGTH = 16;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final int maxEntries;
+
+    // LRU theo thứ tự truy cập, guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    // Tăng mỗi lần invalidate; file sinh xong sau đó không được đưa vào cache, guarded by this
+    private long generation;
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public ExportResultCache(@Value("${export.cache.dir:}") String directory,
+                             @Value("${export.cache.max-bytes:1073741824}") long maxBytes,
+                             @Value("${export.cache.max-entries:1000}") int maxEntries) {
+        this.directory = directory.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "export-cache")
+                : Path.of(directory);
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Re-indexes files left by a previous run, oldest first.
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(Files::isRegularFile).forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(f -> f.toFile().lastModified()));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int dash = name.indexOf('-');
+            int dot = name.indexOf('.');
+            if (name.endsWith(".tmp") || dash != TYPE_TAG_LENGTH || dot < dash) {
+                // File dở dang hoặc không phải của cache
+                Files.deleteIfExists(file);
+                continue;
+            }
+            synchronized (this) {
+                index(name.substring(dash + 1, dot), new Entry(file, Files.size(file), name.substring(0, dash)));
+            }
+        }
+        log.info("Export cache {}: {} files, {} bytes", directory, entries.size(), totalBytes);
+    }
+
+    /**
+     * Cache key of an export: exporter type, template path + version, engine, sink options
+     * (auto width, compression, rows per sheet, shared strings), format and the query
+     * parameters (order-independent). Every field is length-prefixed, so values
+     * containing separators cannot make two different requests hash the same.
+     */
+    public String key(BaseExcelExportService<?> exporter, ExportFormat format, Map<String, ?> params) {
+        ExcelTemplate template = exporter.getTemplateRegistry().get(exporter.getClass(), exporter.getTemplatePath());
+        ExportCompression compression = exporter.getCompression();
+        SharedStringsPolicy sharedStrings = exporter.getSharedStrings();
+
+        StringBuilder sb = new StringBuilder();
+        field(sb, exporter.getClass().getName());
+        field(sb, template.getPath());
+        field(sb, template.getLastModified());
+        field(sb, exporter.getEngine());
+        field(sb, format);
+        field(sb, exporter.isAutoWidth());
+        field(sb, compression.getLevel());
+        field(sb, compression.getParallelism());
+        field(sb, compression.getBlockSize());
+        field(sb, exporter.getMaxRowsPerSheet());
+        // Set.copyOf không giữ thứ tự giữa các lần chạy: sort để key ổn định sau restart
+        field(sb, new TreeSet<>(sharedStrings.getColumns()));
+        field(sb, sharedStrings.getMaxPerColumn());
+        field(sb, sharedStrings.getMaxTotal());
+        field(sb, params.size());
+        new TreeMap<>(params).forEach((k, v) -> {
+            field(sb, k);
+            field(sb, v);
+        });
+        return sha256(sb.toString());
+    }
+
+    private static void field(StringBuilder sb, Object value) {
+        String text = String.valueOf(value);
+        sb.append(text.length()).append(':').append(text);
+    }
+
+    /**
+     * Opens the cached file for {@code key}, generating it once if missing.
+     * Callers with the same key block until the single generation completes.
+     * The caller must close the returned channel.
+     */
+    public FileChannel getOrCreate(String key, ExportFormat format, Class<?> exporterType, Generator generator) {
+        String typeTag = typeTag(exporterType);
+        FileChannel cached = open(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        InFlight mine = new InFlight(typeTag, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            // Request giống hệt đang sinh file: chờ xong rồi đọc từ cache
+            join(running.future);
+            return getOrCreate(key, format, exporterType, generator);
+        }
+
+        try {
+            // Có thể vừa xong trước khi đăng ký
+            FileChannel done = open(key);
+            if (done != null) {
+                hits.increment();
+                mine.future.complete(null);
+                return done;
+            }
+            misses.increment();
+            FileChannel generated = generate(key, format, typeTag, generator);
+            mine.future.complete(null);
+            return generated;
+        } catch (Throwable e) {
+            mine.future.completeExceptionally(e);
+            throw e instanceof RuntimeException re ? re : new RuntimeException("Error generating export", e);
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public synchronized void invalidate(String key) {
+        generation++;
+        inFlight.remove(key);
+        remove(key);
+    }
+
+    /**
+     * Drops every file produced by {@code exporterType}, including files re-indexed
+     * after a restart. Generations still running are not cached when they finish.
+     */
+    public synchronized void invalidate(Class<?> exporterType) {
+        String typeTag = typeTag(exporterType);
+        generation++;
+        inFlight.values().removeIf(running -> running.typeTag.equals(typeTag));
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (typeTag.equals(e.getValue().typeTag)) {
+                keys.add(e.getKey());
+            }
+        }
+        keys.forEach(this::remove);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        inFlight.clear();
+        new ArrayList<>(entries.keySet()).forEach(this::remove);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Mở file trong lock: không bị evict giữa lúc tìm thấy và lúc mở
+    private synchronized FileChannel open(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(entry.file);
+        } catch (NoSuchFileException e) {
+            // Bị xóa từ bên ngoài
+            remove(key);
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening cached export", e);
+        }
+    }
+
+    private FileChannel generate(String key, ExportFormat format, String typeTag, Generator generator) throws IOException {
+        long startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+        }
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, key, ".tmp");
+        try {
+            generator.generate(tmp);
+            Path file = directory.resolve(typeTag + "-" + key + "." + format.getExtension());
+            synchronized (this) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                FileChannel channel = FileChannel.open(file);
+                if (generation != startGeneration) {
+                    // Bị invalidate trong lúc sinh: trả cho request này nhưng không cache
+                    delete(file);
+                    return channel;
+                }
+                index(key, new Entry(file, Files.size(file), typeTag));
+                return channel;
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // guarded by this
+    private void index(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.size;
+        }
+        totalBytes += entry.size;
+        evict(key);
+    }
+
+    // Bỏ file ít dùng nhất, không bao giờ bỏ file vừa thêm
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while ((totalBytes > maxBytes || entries.size() > maxEntries) && it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (e.getKey().equals(keep)) {
+                continue;
+            }
+            it.remove();
+            totalBytes -= e.getValue().size;
+            delete(e.getValue().file);
+            evictions.increment();
+        }
+    }
+
+    // guarded by this
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.size;
+            delete(entry.file);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            // Channel đang mở vẫn đọc được tới hết (unlink)
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete cached export {}", file, e);
+        }
+    }
+
+    private static void join(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException re ? re : new RuntimeException("Error generating export", cause);
+        }
+    }
+
+    private static String typeTag(Class<?> exporterType) {
+        return sha256(exporterType.getName()).substring(0, TYPE_TAG_LENGTH);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entry(Path file, long size, String typeTag) {
+    }
+
+    private record InFlight(String typeTag, CompletableFuture<Void> future) {
+    }
+}
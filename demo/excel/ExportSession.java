@@ -0,0 +1,249 @@
+package com.example.demo.excel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * State of one running export (sink, buffered rows, output path).
+ * Exporter beans stay stateless singletons; every export gets its own session,
+ * so N exports can run in parallel. A session is used by one thread at a time
+ * and holds a slot of the {@link ExportSessionPool} until {@link #close()}.
+ */
+public class ExportSession<T> implements AutoCloseable {
+
+    private static final ThreadLocal<ExportSession<?>> WRITING = new ThreadLocal<>();
+
+    private final BaseExcelExportService<T> exporter;
+    private final ExportSessionPool pool;
+    private final ExportFormat format;
+    private final long expectedRows;
+
+    private ExportSink sink;
+    // Buffer của appendAndMaybeExport: dạng cột nếu exporter hỗ trợ, không thì giữ DTO
+    private ColumnarRowBuffer columnarRows;
+    private final List<T> bufferedRows = new ArrayList<>();
+    private RollingExport rolling;
+    private boolean closed;
+
+    ExportSession(BaseExcelExportService<T> exporter, ExportSessionPool pool,
+                  OutputStream target, ExportFormat format, long expectedRows) {
+        this.exporter = exporter;
+        this.pool = pool;
+        this.format = format;
+        this.expectedRows = expectedRows;
+        pool.acquire();
+        try {
+            this.sink = exporter.openSink(target, format, expectedRows);
+        } catch (RuntimeException e) {
+            pool.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Session whose rows are being written on the current thread.
+     */
+    static ExportSession<?> writing() {
+        return WRITING.get();
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    ExportSink getSink() {
+        if (sink == null) {
+            throw new IllegalStateException("Export is not started");
+        }
+        return sink;
+    }
+
+    public void append(List<T> records) {
+        writeRows(records.size(), (row, i) -> exporter.writeDataRow(records.get(i), row));
+    }
+
+    /**
+     * Writes {@code count} rows to the sink, rolling to a new part when needed.
+     */
+    private void writeRows(int count, ObjIntConsumer<ExcelRowWriter> rowWriter) {
+        ExportSession<?> previous = WRITING.get();
+        WRITING.set(this);
+        try {
+            for (int i = 0; i < count; i++) {
+                if (sink == null && rolling != null) {
+                    // Part trước đã đầy: mở part mới khi có dòng tiếp theo
+                    sink = exporter.openSink(null, format, partRowsHint());
+                }
+                ExportSink current = getSink();
+                rowWriter.accept(current.nextRow(), i);
+                if (rolling != null && rolling.rowWritten(current)) {
+                    finishPart();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing Excel", e);
+        } finally {
+            if (previous != null) {
+                WRITING.set(previous);
+            } else {
+                WRITING.remove();
+            }
+        }
+    }
+
+    /**
+     * Splits the rest of this export into numbered parts next to {@code baseFile}
+     * (students.xlsx → students-part-0001.xlsx, ...). Parts roll according to
+     * {@code policy}; call {@link #completeRolling()} at the end.
+     */
+    public void enableRolling(Path baseFile, RollingPolicy policy) {
+        if (rolling != null) {
+            throw new IllegalStateException("Rolling is already enabled");
+        }
+        rolling = new RollingExport(baseFile, format, policy);
+    }
+
+    /**
+     * Finishes the last part and writes the manifest (and the bundle if configured).
+     */
+    public ExportManifest completeRolling() {
+        if (rolling == null) {
+            throw new IllegalStateException("Rolling is not enabled");
+        }
+        try {
+            if (sink != null) {
+                if (rolling.getRowsInPart() > 0 || rolling.getPartCount() == 0) {
+                    finishPart();
+                } else {
+                    sink.close();
+                    sink = null;
+                }
+            }
+            return rolling.complete();
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing export manifest", e);
+        } finally {
+            rolling = null;
+        }
+    }
+
+    public void appendAndMaybeExport(List<T> records, int n, String filePath) {
+        if (rolling == null) enableRolling(Path.of(filePath), RollingPolicy.byRows(n));
+
+        if (exporter.supportsColumnarBuffer()) {
+            if (columnarRows == null) {
+                columnarRows = new ColumnarRowBuffer(n, exporter.bufferColumnCount());
+            }
+            for (T record : records) {
+                // Ghi record vào buffer ngay, không giữ DTO
+                exporter.writeDataRow(record, columnarRows.nextRow());
+                if (columnarRows.isFull()) {
+                    drainColumnarRows();
+                }
+            }
+            return;
+        }
+
+        for (T record : records) {
+            bufferedRows.add(record);
+            if (bufferedRows.size() >= n) {
+                append(bufferedRows);
+                bufferedRows.clear();
+            }
+        }
+    }
+
+    // Ghi buffer còn lại khi kết thúc
+    public void flushRemaining() {
+        if (columnarRows != null && columnarRows.size() > 0) {
+            drainColumnarRows();
+        }
+        if (!bufferedRows.isEmpty()) {
+            append(bufferedRows);
+            bufferedRows.clear();
+        }
+        if (rolling != null) {
+            completeRolling();
+        }
+    }
+
+    private void drainColumnarRows() {
+        ColumnarRowBuffer buffer = columnarRows;
+        try {
+            writeRows(buffer.size(), (row, i) -> buffer.replay(i, row));
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    // Part mới chứa tối đa maxRows dòng
+    private long partRowsHint() {
+        long maxRows = rolling.getPolicy().getMaxRows();
+        return expectedRows > 0 ? Math.min(maxRows, expectedRows) : maxRows;
+    }
+
+    private void finishPart() throws IOException {
+        Path part = rolling.nextPartPath();
+        try {
+            sink.finish(part);
+        } finally {
+            sink.close();
+            sink = null;
+        }
+        rolling.partFinished(part);
+    }
+
+    public void finish(String filePath) {
+        ExportSink current = getSink();
+        try {
+            current.finish(Path.of(filePath));
+
+        } catch (Exception e) {
+            throw new RuntimeException("Error writing Excel", e);
+
+        } finally {
+            current.close();
+            sink = null;
+        }
+    }
+
+    /**
+     * Writes the workbook to {@code out} (e.g. an HTTP response) instead of a file.
+     * The stream is flushed but not closed.
+     */
+    public void finish(OutputStream out) {
+        ExportSink current = getSink();
+        try {
+            current.finish(out);
+
+        } catch (Exception e) {
+            throw new RuntimeException("Error writing Excel", e);
+
+        } finally {
+            current.close();
+            sink = null;
+        }
+    }
+
+    /**
+     * Discards anything not finished and returns the slot to the pool.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (sink != null) {
+            sink.close();
+            sink = null;
+        }
+        bufferedRows.clear();
+        columnarRows = null;
+        pool.release();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.excel;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many exports run at the same time on this node.
+ * Callers beyond the limit wait up to the acquire timeout, then get
+ * {@link ExportRejectedException} (back-pressure instead of OOM / disk full).
+ */
+@Component
+public class ExportSessionPool {
+
+    private final int maxConcurrent;
+    private final long acquireTimeoutMillis;
+    private final Semaphore permits;
+
+    @Autowired
+    public ExportSessionPool(@Value("${export.max-concurrent:4}") int maxConcurrent,
+                             @Value("${export.acquire-timeout-ms:30000}") long acquireTimeoutMillis) {
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ExportRejectedException(
+                        "Too many concurrent exports (max " + maxConcurrent + "), try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExportRejectedException("Interrupted while waiting for an export slot");
+        }
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+}
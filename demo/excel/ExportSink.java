@@ -0,0 +1,51 @@
+package com.example.demo.excel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Destination of one export. A sink is stateful and used by a single export:
+ * open → nextRow()* → finish → close.
+ */
+public interface ExportSink {
+
+    /**
+     * Starts the document and writes the template header.
+     *
+     * @param target stream to write to while rows are appended, or {@code null}
+     *               to keep the document until {@link #finish(OutputStream)}
+     */
+    void open(ExcelTemplate template, String sheetName, OutputStream target) throws IOException;
+
+    /**
+     * Starts a new data row. The returned writer is only valid until the next call.
+     */
+    ExcelRowWriter nextRow() throws IOException;
+
+    /**
+     * Bytes of the final document written so far, or -1 if the engine cannot tell
+     * before finish.
+     */
+    default long getBytesWritten() {
+        return -1;
+    }
+
+    /**
+     * Completes the document into {@code out}. When a target was bound in
+     * {@link #open}, {@code out} must be that same stream. The stream is not closed.
+     */
+    void finish(OutputStream out) throws IOException;
+
+    default void finish(Path target) throws IOException {
+        try (OutputStream out = Files.newOutputStream(target)) {
+            finish(out);
+        }
+    }
+
+    /**
+     * Releases resources (temp files, buffers). Safe to call more than once.
+     */
+    void close();
+}
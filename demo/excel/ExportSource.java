@@ -0,0 +1,33 @@
+package com.example.demo.excel;
+
+import java.util.List;
+
+/**
+ * Paged, repeatable source of the rows of an async export.
+ * Reading by offset lets a job resume after its last completed part.
+ */
+@FunctionalInterface
+public interface ExportSource<T> {
+
+    /**
+     * Returns up to {@code limit} rows starting at {@code offset};
+     * an empty list means there are no more rows.
+     */
+    List<T> fetch(long offset, int limit);
+
+    /**
+     * Total row count for progress / ETA, or -1 if unknown.
+     */
+    default long count() {
+        return -1;
+    }
+
+    /**
+     * This source with {@code filter} applied at the source, or null if it cannot
+     * evaluate the filter (the caller then filters the rows itself). Offsets and
+     * count of the returned source refer to the filtered rows.
+     */
+    default ExportSource<T> filtered(SourceFilter<? super T> filter) {
+        return null;
+    }
+}
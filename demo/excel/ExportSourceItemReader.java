@@ -0,0 +1,95 @@
+package com.example.demo.excel;
+
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * Spring Batch reader over an {@link ExportSource}: rows are fetched one page of
+ * {@code fetchSize} at a time, so memory stays at one page whatever the job size.
+ * The read count is saved in the {@code ExecutionContext}; a restarted step
+ * fetches directly from the saved offset instead of reading through.
+ */
+public class ExportSourceItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+
+    private final ExportSource<T> source;
+    private int fetchSize = 1000;
+    private long startOffset;
+    private int maxItemCount = Integer.MAX_VALUE;
+
+    private List<T> page;
+    private int pageIndex;
+    private int requested;
+    private long nextOffset;
+
+    public ExportSourceItemReader(ExportSource<T> source) {
+        this.source = source;
+        setName(ClassUtils.getShortName(ExportSourceItemReader.class));
+    }
+
+    /**
+     * Rows fetched per call to the source (default 1000).
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize must be positive");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Offset of the first row in the source, e.g. the start of a partition.
+     * Combine with {@link #setMaxItemCount} to read a range.
+     */
+    public void setStartOffset(long startOffset) {
+        this.startOffset = startOffset;
+    }
+
+    @Override
+    public void setMaxItemCount(int count) {
+        super.setMaxItemCount(count);
+        this.maxItemCount = count;
+    }
+
+    @Override
+    protected void doOpen() {
+        page = null;
+        pageIndex = 0;
+        nextOffset = startOffset;
+    }
+
+    @Override
+    protected T doRead() {
+        if (page == null || pageIndex >= page.size()) {
+            // Trang trước thiếu → đã hết dữ liệu
+            if (page != null && page.size() < requested) {
+                return null;
+            }
+            // Không fetch quá cuối range
+            requested = (int) Math.min(fetchSize, startOffset + maxItemCount - nextOffset);
+            if (requested <= 0) {
+                return null;
+            }
+            page = source.fetch(nextOffset, requested);
+            pageIndex = 0;
+            nextOffset += page.size();
+            if (page.isEmpty()) {
+                return null;
+            }
+        }
+        return page.get(pageIndex++);
+    }
+
+    @Override
+    protected void jumpToItem(int itemIndex) {
+        page = null;
+        pageIndex = 0;
+        nextOffset = startOffset + itemIndex;
+    }
+
+    @Override
+    protected void doClose() {
+        page = null;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.excel;
+
+import org.apache.poi.util.TempFileCreationStrategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * POI temp-file strategy that keeps SXSSF temp files in one directory under a
+ * disk quota of {@code quotaBytes}.
+ * <p>
+ * The strategy remembers the files it created and keeps a running total of their
+ * sizes. New files are refused once the total is over quota, and
+ * {@link #checkQuota()} (called after every SXSSF flush) fails the export whose
+ * rows push the total over it.
+ */
+class QuotaTempFileCreationStrategy implements TempFileCreationStrategy {
+
+    private final Path directory;
+    private final long quotaBytes;
+
+    // File đã tạo -> size lần đọc gần nhất
+    private final Map<File, Long> files = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    QuotaTempFileCreationStrategy(Path directory, long quotaBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.quotaBytes = quotaBytes;
+    }
+
+    @Override
+    public File createTempFile(String prefix, String suffix) throws IOException {
+        long used = usedBytes.get();
+        if (used >= quotaBytes) {
+            throw overQuota(used);
+        }
+        File file = Files.createTempFile(directory, prefix, suffix).toFile();
+        files.put(file, 0L);
+        return file;
+    }
+
+    @Override
+    public File createTempDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory(directory, prefix).toFile();
+    }
+
+    /**
+     * Re-reads the size of every file created here (files POI has deleted drop
+     * out) and fails if the total is over quota.
+     */
+    void checkQuota() throws IOException {
+        long used = refresh();
+        if (used > quotaBytes) {
+            throw overQuota(used);
+        }
+    }
+
+    long refresh() {
+        for (File file : files.keySet()) {
+            files.computeIfPresent(file, (f, previous) -> {
+                // File đã xóa: length() = 0
+                long size = f.length();
+                usedBytes.addAndGet(size - previous);
+                return f.exists() ? size : null;
+            });
+        }
+        return usedBytes.get();
+    }
+
+    /**
+     * Total size at the last refresh; cheap enough for a gauge.
+     */
+    long usedBytes() {
+        return usedBytes.get();
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    private IOException overQuota(long used) {
+        return new IOException("Export temp directory " + directory + " is over quota ("
+                + used + " / " + quotaBytes + " bytes)");
+    }
+}
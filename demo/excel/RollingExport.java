@@ -0,0 +1,129 @@
+package com.example.demo.excel;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Part bookkeeping of a rolling export: numbered file names, manifest, bundle.
+ * students.xlsx → students-part-0001.xlsx, students-part-0002.xlsx, ...,
+ * students-manifest.json and (optional) students.zip.
+ */
+class RollingExport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Path directory;
+    private final String baseName;
+    private final String extension;
+    private final RollingPolicy policy;
+
+    private final ExportManifest manifest = new ExportManifest();
+    private final List<Path> partFiles = new ArrayList<>();
+    private long rowsInPart;
+
+    RollingExport(Path baseFile, ExportFormat format, RollingPolicy policy) {
+        Path absolute = baseFile.toAbsolutePath();
+
+        this.directory = absolute.getParent();
+        this.baseName = baseName(absolute.getFileName().toString(), format);
+        this.extension = "." + format.getExtension();
+        this.policy = policy;
+
+        manifest.setBaseName(baseName);
+        manifest.setCreatedAt(Instant.now().toString());
+    }
+
+    /**
+     * Counts a written row; returns true when the current part is full.
+     */
+    boolean rowWritten(ExportSink sink) {
+        rowsInPart++;
+        return policy.isFull(rowsInPart, policy.estimateBytes(rowsInPart, sink.getBytesWritten()));
+    }
+
+    RollingPolicy getPolicy() {
+        return policy;
+    }
+
+    long getRowsInPart() {
+        return rowsInPart;
+    }
+
+    int getPartCount() {
+        return partFiles.size();
+    }
+
+    Path nextPartPath() {
+        return directory.resolve(partFileName(baseName, partFiles.size() + 1, extension));
+    }
+
+    /**
+     * File name without the extension of {@code format}: extensions like {@code csv.gz}
+     * have several dots, so the name is not split at the last one.
+     */
+    static String baseName(String fileName, ExportFormat format) {
+        String extension = "." + format.getExtension();
+        return fileName.endsWith(extension) ? fileName.substring(0, fileName.length() - extension.length()) : fileName;
+    }
+
+    static String partFileName(String baseName, int index, String extension) {
+        return String.format("%s-part-%04d%s", baseName, index, extension);
+    }
+
+    void partFinished(Path part) throws IOException {
+        partFinished(part, rowsInPart);
+        rowsInPart = 0;
+    }
+
+    // Part ghi bởi nơi khác (vd. partition của batch), số row đã biết
+    void partFinished(Path part, long rows) throws IOException {
+        partFiles.add(part);
+        manifest.getParts().add(new ExportManifest.Part(
+                partFiles.size(), part.getFileName().toString(), rows, Files.size(part)));
+        manifest.setTotalRows(manifest.getTotalRows() + rows);
+    }
+
+    ExportManifest complete() throws IOException {
+        Path manifestFile = directory.resolve(baseName + "-manifest.json");
+
+        if (policy.isBundle()) {
+            Path bundle = directory.resolve(baseName + ".zip");
+            manifest.setBundle(bundle.getFileName().toString());
+            writeBundle(bundle, manifestFile);
+        }
+        MAPPER.writeValue(manifestFile.toFile(), manifest);
+        return manifest;
+    }
+
+    private void writeBundle(Path bundle, Path manifestFile) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(bundle))) {
+            // Part xlsx đã nén sẵn, nén lại chỉ tốn CPU
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            for (Path part : partFiles) {
+                zip.putNextEntry(new ZipEntry(part.getFileName().toString()));
+                Files.copy(part, zip);
+                zip.closeEntry();
+            }
+            zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(new ZipEntry(manifestFile.getFileName().toString()));
+            writeManifest(zip);
+            zip.closeEntry();
+        }
+    }
+
+    private void writeManifest(OutputStream out) throws IOException {
+        // Không để Jackson close zip stream
+        out.write(MAPPER.writeValueAsBytes(manifest));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.excel;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * When a rolling export closes the current part and starts the next one.
+ * A part is full when it reaches {@code maxRows} data rows, {@code maxBytes}
+ * output bytes, or the Excel sheet limit, whichever comes first.
+ */
+@Value
+@Builder
+public class RollingPolicy {
+
+    public static final int EXCEL_MAX_ROWS = 1_048_576;
+
+    // Trừ 1 dòng header
+    public static final long EXCEL_MAX_DATA_ROWS = EXCEL_MAX_ROWS - 1;
+
+    @Builder.Default
+    long maxRows = EXCEL_MAX_DATA_ROWS;
+
+    @Builder.Default
+    long maxBytes = Long.MAX_VALUE;
+
+    // Dùng để ước lượng size khi engine không đếm được byte (SXSSF)
+    @Builder.Default
+    int estimatedRowBytes = 64;
+
+    // Gom tất cả part + manifest vào 1 file zip khi hoàn thành
+    boolean bundle;
+
+    public static RollingPolicy byRows(long maxRows) {
+        return builder().maxRows(maxRows).build();
+    }
+
+    public static RollingPolicy bySize(long maxBytes) {
+        return builder().maxBytes(maxBytes).build();
+    }
+
+    public static RollingPolicy excelLimit() {
+        return builder().build();
+    }
+
+    public boolean isFull(long rows, long bytes) {
+        return rows >= Math.min(maxRows, EXCEL_MAX_DATA_ROWS) || bytes >= maxBytes;
+    }
+
+    long estimateBytes(long rows, long bytesWritten) {
+        return bytesWritten >= 0 ? bytesWritten : rows * estimatedRowBytes;
+    }
+}
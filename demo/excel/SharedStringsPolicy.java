@@ -0,0 +1,28 @@
+package com.example.demo.excel;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * Which columns go through the shared-strings table and how big it may grow.
+ * A column that reaches {@code maxPerColumn} distinct values writes its new
+ * values inline; so does every column once the table holds {@code maxTotal} entries.
+ */
+@Value
+public class SharedStringsPolicy {
+
+    public static final SharedStringsPolicy NONE = new SharedStringsPolicy(Set.of(), 0, 0);
+
+    Set<Integer> columns;
+    int maxPerColumn;
+    int maxTotal;
+
+    public static SharedStringsPolicy of(Set<Integer> columns) {
+        return new SharedStringsPolicy(Set.copyOf(columns), 1_024, 65_536);
+    }
+
+    public boolean isEnabled() {
+        return !columns.isEmpty() && maxPerColumn > 0 && maxTotal > 0;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.excel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded xl/sharedStrings.xml for {@link StreamingXlsxExportSink}.
+ * Only columns of the {@link SharedStringsPolicy} are looked up; once a column
+ * overflows, values it has not seen yet are written inline.
+ */
+class SharedStringsTable {
+
+    private final SharedStringsPolicy policy;
+    private final boolean[] sharedColumns;
+    private final int[] distinctPerColumn;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private long references;
+
+    SharedStringsTable(SharedStringsPolicy policy) {
+        this.policy = policy;
+        int maxColumn = policy.getColumns().stream().mapToInt(Integer::intValue).max().orElse(-1);
+        this.sharedColumns = new boolean[maxColumn + 1];
+        for (int column : policy.getColumns()) {
+            sharedColumns[column] = true;
+        }
+        this.distinctPerColumn = new int[maxColumn + 1];
+    }
+
+    /**
+     * Index of {@code value} in the table, or -1 to write it inline.
+     */
+    int indexOf(int column, String value) {
+        if (column >= sharedColumns.length || !sharedColumns[column]) {
+            return -1;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            if (distinctPerColumn[column] >= policy.getMaxPerColumn() || strings.size() >= policy.getMaxTotal()) {
+                return -1;
+            }
+            id = strings.size();
+            strings.add(value);
+            ids.put(value, id);
+            distinctPerColumn[column]++;
+        }
+        references++;
+        return id;
+    }
+
+    boolean isEmpty() {
+        return strings.isEmpty();
+    }
+
+    void write(XmlCharBuffer xml) throws IOException {
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" count=\"")
+                .append(references).append("\" uniqueCount=\"").append(strings.size()).append("\">");
+        for (String s : strings) {
+            xml.append("<si><t");
+            if (!s.isEmpty() && (s.charAt(0) == ' ' || s.charAt(s.length() - 1) == ' ')) {
+                xml.append(" xml:space=\"preserve\"");
+            }
+            xml.append('>').appendEscaped(s).append("</t></si>");
+        }
+        xml.append("</sst>");
+    }
+}
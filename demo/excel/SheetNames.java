@@ -0,0 +1,21 @@
+package com.example.demo.excel;
+
+/**
+ * Sheet names for row-limit rollover: "Students", "Students (2)", "Students (3)", ...
+ */
+final class SheetNames {
+
+    // Giới hạn độ dài tên sheet của Excel
+    static final int MAX_LENGTH = 31;
+
+    private SheetNames() {
+    }
+
+    static String rollover(String base, int index) {
+        String suffix = " (" + index + ")";
+        if (base.length() + suffix.length() > MAX_LENGTH) {
+            base = base.substring(0, MAX_LENGTH - suffix.length());
+        }
+        return base + suffix;
+    }
+}
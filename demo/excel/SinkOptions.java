@@ -0,0 +1,31 @@
+package com.example.demo.excel;
+
+import lombok.Value;
+
+/**
+ * Per-export hints passed to {@link ExportEngine#createSink(SinkOptions)}.
+ */
+@Value
+public class SinkOptions {
+
+    public static final SinkOptions DEFAULT = new SinkOptions(0, null, SharedStringsPolicy.NONE, false, ExportCompression.DEFAULT,
+            RollingPolicy.EXCEL_MAX_DATA_ROWS);
+
+    // Số dòng dự kiến, 0 = không biết
+    long expectedRows;
+
+    // null = window cố định như trước
+    SxssfTuner sxssfTuner;
+
+    // Chỉ STREAMING_XML dùng, SXSSF luôn ghi inline
+    SharedStringsPolicy sharedStrings;
+
+    // Ước lượng độ rộng cột từ dữ liệu (ColumnWidthEstimator)
+    boolean autoWidth;
+
+    // Chỉ STREAMING_XML dùng, SXSSF nén bằng writer của POI
+    ExportCompression compression;
+
+    // Số dòng data mỗi sheet trước khi sang sheet mới (XLSX)
+    long maxRowsPerSheet;
+}
@@ -0,0 +1,21 @@
+package com.example.demo.excel;
+
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Row filter that sources may evaluate themselves ({@link ExportSource#filtered}),
+ * so rejected rows are never built, read or passed through the chunk machinery.
+ * {@link #test} is the reference condition and the fallback for sources that
+ * cannot push the filter down.
+ */
+public interface SourceFilter<T> extends Predicate<T> {
+
+    /**
+     * The same condition on the row key (generated position, primary key), for
+     * sources that can skip rows before building them; null if it depends on other fields.
+     */
+    default LongPredicate keyPredicate() {
+        return null;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.demo.excel;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds xl/styles.xml for {@link StreamingXlsxExportSink}.
+ * Same idea as {@link ExcelStylePool}: one cellXf per distinct descriptor,
+ * fonts / fills / borders / number formats deduplicated as well.
+ */
+class SpreadsheetMlStyles {
+
+    private static final int FIRST_CUSTOM_FORMAT_ID = 164;
+
+    // Theo thứ tự FillPatternType.getCode()
+    private static final String[] PATTERNS = {
+            "none", "solid", "mediumGray", "darkGray", "lightGray", "darkHorizontal", "darkVertical",
+            "darkDown", "darkUp", "darkGrid", "darkTrellis", "lightHorizontal", "lightVertical",
+            "lightDown", "lightUp", "lightGrid", "lightTrellis", "gray125", "gray0625"
+    };
+
+    private final Map<ExcelStyleDescriptor, Integer> xfIds = new HashMap<>();
+    private final List<ExcelStyleDescriptor> xfs = new ArrayList<>();
+
+    private final Map<ExcelStyleDescriptor.FontKey, Integer> fontIds = new LinkedHashMap<>();
+    private final Map<String, Integer> fillIds = new LinkedHashMap<>();
+    private final Map<String, Integer> borderIds = new LinkedHashMap<>();
+    private final Map<String, Integer> numFmtIds = new LinkedHashMap<>();
+
+    SpreadsheetMlStyles() {
+        // Mặc định bắt buộc: font 0, fill 0 (none), fill 1 (gray125), border 0, xf 0
+        fontIds.put(new ExcelStyleDescriptor.FontKey("Calibri", (short) 220, false, false,
+                IndexedColors.AUTOMATIC.getIndex(), null), 0);
+        fillIds.put("<fill><patternFill patternType=\"none\"/></fill>", 0);
+        fillIds.put("<fill><patternFill patternType=\"gray125\"/></fill>", 1);
+        borderIds.put("<border><left/><right/><top/><bottom/><diagonal/></border>", 0);
+        xfs.add(null);
+    }
+
+    /**
+     * Returns the cellXfs index for the descriptor (0 = default style).
+     */
+    int styleId(ExcelStyleDescriptor descriptor) {
+        if (descriptor == null) {
+            return 0;
+        }
+        return xfIds.computeIfAbsent(descriptor, d -> {
+            xfs.add(d);
+            return xfs.size() - 1;
+        });
+    }
+
+    void write(XmlCharBuffer xml) throws IOException {
+        // Chuẩn bị id cho font/fill/border/numFmt trước khi ghi
+        int size = xfs.size();
+        String[] xfElements = new String[size];
+        for (int i = 1; i < size; i++) {
+            xfElements[i] = xf(xfs.get(i));
+        }
+
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+
+        if (!numFmtIds.isEmpty()) {
+            xml.append("<numFmts count=\"").append(numFmtIds.size()).append("\">");
+            for (Map.Entry<String, Integer> e : numFmtIds.entrySet()) {
+                xml.append("<numFmt numFmtId=\"").append(e.getValue())
+                        .append("\" formatCode=\"").appendEscaped(e.getKey()).append("\"/>");
+            }
+            xml.append("</numFmts>");
+        }
+
+        xml.append("<fonts count=\"").append(fontIds.size()).append("\">");
+        for (ExcelStyleDescriptor.FontKey font : fontIds.keySet()) {
+            writeFont(xml, font);
+        }
+        xml.append("</fonts>");
+
+        xml.append("<fills count=\"").append(fillIds.size()).append("\">");
+        for (String fill : fillIds.keySet()) {
+            xml.append(fill);
+        }
+        xml.append("</fills>");
+
+        xml.append("<borders count=\"").append(borderIds.size()).append("\">");
+        for (String border : borderIds.keySet()) {
+            xml.append(border);
+        }
+        xml.append("</borders>");
+
+        xml.append("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>");
+
+        xml.append("<cellXfs count=\"").append(size).append("\">")
+                .append("<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>");
+        for (int i = 1; i < size; i++) {
+            xml.append(xfElements[i]);
+        }
+        xml.append("</cellXfs>");
+
+        xml.append("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>")
+                .append("</styleSheet>");
+    }
+
+    private String xf(ExcelStyleDescriptor d) {
+        int fontId = fontIds.computeIfAbsent(d.fontKey(), k -> fontIds.size());
+        int fillId = fillIds.computeIfAbsent(fill(d), k -> fillIds.size());
+        int borderId = borderIds.computeIfAbsent(border(d), k -> borderIds.size());
+        int numFmtId = numFmtId(d.getDataFormat());
+
+        StringBuilder sb = new StringBuilder("<xf numFmtId=\"").append(numFmtId)
+                .append("\" fontId=\"").append(fontId)
+                .append("\" fillId=\"").append(fillId)
+                .append("\" borderId=\"").append(borderId)
+                .append("\" xfId=\"0\" applyNumberFormat=\"1\" applyFont=\"1\" applyFill=\"1\" applyBorder=\"1\" applyAlignment=\"1\">")
+                .append("<alignment");
+        if (d.getAlignment() != null && d.getAlignment() != HorizontalAlignment.GENERAL) {
+            sb.append(" horizontal=\"").append(horizontal(d.getAlignment())).append('"');
+        }
+        if (d.getVerticalAlignment() != null) {
+            sb.append(" vertical=\"").append(d.getVerticalAlignment() == VerticalAlignment.CENTER
+                    ? "center" : d.getVerticalAlignment().name().toLowerCase()).append('"');
+        }
+        if (d.isWrapText()) {
+            sb.append(" wrapText=\"1\"");
+        }
+        return sb.append("/></xf>").toString();
+    }
+
+    private int numFmtId(String format) {
+        if (format == null) {
+            return 0;
+        }
+        int builtin = BuiltinFormats.getBuiltinFormat(format);
+        if (builtin >= 0) {
+            return builtin;
+        }
+        return numFmtIds.computeIfAbsent(format, k -> FIRST_CUSTOM_FORMAT_ID + numFmtIds.size());
+    }
+
+    private static String fill(ExcelStyleDescriptor d) {
+        FillPatternType pattern = d.getFillPattern();
+        if (pattern == null || pattern == FillPatternType.NO_FILL) {
+            return "<fill><patternFill patternType=\"none\"/></fill>";
+        }
+        StringBuilder sb = new StringBuilder("<fill><patternFill patternType=\"")
+                .append(PATTERNS[pattern.getCode()]).append("\">");
+        appendColor(sb, "fgColor", d.getFillForegroundArgb(), d.getFillForegroundIndex());
+        return sb.append("</patternFill></fill>").toString();
+    }
+
+    private static String border(ExcelStyleDescriptor d) {
+        StringBuilder sb = new StringBuilder("<border>");
+        appendBorder(sb, "left", d.getBorderLeft());
+        appendBorder(sb, "right", d.getBorderRight());
+        appendBorder(sb, "top", d.getBorderTop());
+        appendBorder(sb, "bottom", d.getBorderBottom());
+        return sb.append("<diagonal/></border>").toString();
+    }
+
+    private static void appendBorder(StringBuilder sb, String side, BorderStyle style) {
+        if (style == null || style == BorderStyle.NONE) {
+            sb.append('<').append(side).append("/>");
+            return;
+        }
+        sb.append('<').append(side).append(" style=\"").append(borderStyle(style)).append("\">")
+                .append("<color indexed=\"64\"/>")
+                .append("</").append(side).append('>');
+    }
+
+    private static void writeFont(XmlCharBuffer xml, ExcelStyleDescriptor.FontKey font) throws IOException {
+        xml.append("<font>");
+        if (font.isBold()) {
+            xml.append("<b/>");
+        }
+        if (font.isItalic()) {
+            xml.append("<i/>");
+        }
+        xml.append("<sz val=\"").append(font.getFontHeight() / 20.0).append("\"/>");
+        StringBuilder color = new StringBuilder();
+        appendColor(color, "color", font.getFontColorArgb(), font.getFontColorIndex());
+        xml.append(color.toString());
+        xml.append("<name val=\"").appendEscaped(font.getFontName() != null ? font.getFontName() : "Calibri")
+                .append("\"/></font>");
+    }
+
+    private static void appendColor(StringBuilder sb, String element, String argb, short index) {
+        if (argb != null) {
+            sb.append('<').append(element).append(" rgb=\"").append(argb).append("\"/>");
+        } else if (index != IndexedColors.AUTOMATIC.getIndex() && index != 0x7FFF) {
+            sb.append('<').append(element).append(" indexed=\"").append(index).append("\"/>");
+        }
+    }
+
+    private static String horizontal(HorizontalAlignment alignment) {
+        return switch (alignment) {
+            case CENTER_SELECTION -> "centerContinuous";
+            default -> alignment.name().toLowerCase();
+        };
+    }
+
+    private static String borderStyle(BorderStyle style) {
+        if (style == BorderStyle.SLANTED_DASH_DOT) {
+            return "slantDashDot";
+        }
+        // MEDIUM_DASH_DOT -> mediumDashDot
+        String[] parts = style.name().toLowerCase().split("_");
+        StringBuilder sb = new StringBuilder(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            sb.append(Character.toUpperCase(parts[i].charAt(0))).append(parts[i].substring(1));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,450 @@
+package com.example.demo.excel;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ExportSink} that writes SpreadsheetML directly into a zip stream ({@link ZipStreamWriter}).
+ * Rows go from {@link ExcelRowWriter} calls into a reusable char buffer and are
+ * deflated immediately: no Row/Cell objects, no intermediate sheet file to re-zip.
+ * With a bound target the bytes reach the client while the export is running;
+ * otherwise the zip is written to a temp file and moved/copied on finish.
+ * <p>
+ * Columns of the {@link SharedStringsPolicy} are written as {@code t="s"} references
+ * into xl/sharedStrings.xml, which is emitted after the sheets.
+ * <p>
+ * With auto width, {@code <cols>} has to precede the rows, so the first
+ * {@value #WIDTH_SAMPLE_ROWS} rows of each sheet are kept in memory and the widths
+ * are estimated from them before the sheet head is written.
+ * <p>
+ * Entries are deflated according to {@link ExportCompression}: block-parallel on
+ * the ForkJoinPool, or store-only.
+ */
+public class StreamingXlsxExportSink implements ExportSink {
+
+    private static final int BUFFER_CHARS = 32 * 1024;
+    static final int WIDTH_SAMPLE_ROWS = 1_000;
+
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private Path tempFile;
+    private OutputStream target;
+    private CountingOutputStream counter;
+    private ZipStreamWriter zip;
+    private ExportCompression compression = ExportCompression.DEFAULT;
+    private XmlCharBuffer xml;          // zipXml, hoặc previewXml khi đang gom mẫu
+    private XmlCharBuffer zipXml;
+
+    private ColumnWidthEstimator widths;
+    private ByteArrayOutputStream preview;
+    private XmlCharBuffer previewXml;
+    private boolean previewing;
+
+    private ExcelTemplate template;
+    private final SpreadsheetMlStyles styles = new SpreadsheetMlStyles();
+    private final SharedStringsTable sharedStrings;
+    private int[] headerStyleIds;
+    private int[] dataStyleIds;
+
+    private final List<String> sheetNames = new ArrayList<>();
+    private final List<char[]> columnRefs = new ArrayList<>();
+    private final StreamingRowWriter rowWriter = new StreamingRowWriter();
+
+    private String baseSheetName;
+    private long maxRowsPerSheet = RollingPolicy.EXCEL_MAX_DATA_ROWS;
+
+    private long currentRow;       // số thứ tự row hiện tại (1-based)
+    private boolean rowOpen;
+    private boolean sheetOpen;
+
+    public StreamingXlsxExportSink() {
+        this(SharedStringsPolicy.NONE);
+    }
+
+    public StreamingXlsxExportSink(SharedStringsPolicy sharedStrings) {
+        this.sharedStrings = sharedStrings.isEnabled() ? new SharedStringsTable(sharedStrings) : null;
+    }
+
+    @Override
+    public void open(ExcelTemplate template, String sheetName, OutputStream target) throws IOException {
+        OutputStream out;
+        if (target != null) {
+            this.target = target;
+            out = target;
+        } else {
+            tempFile = Files.createTempFile("export-", ".xlsx");
+            out = Files.newOutputStream(tempFile);
+        }
+        counter = new CountingOutputStream(out);
+        zip = new ZipStreamWriter(new BufferedOutputStream(counter, 64 * 1024), compression);
+        zipXml = new XmlCharBuffer(zip.data(), BUFFER_CHARS);
+        xml = zipXml;
+
+        this.template = template;
+        int columns = template.getColumnCount();
+        headerStyleIds = new int[columns];
+        dataStyleIds = new int[columns];
+        for (int i = 0; i < columns; i++) {
+            headerStyleIds[i] = styles.styleId(template.getHeaderStyles().get(i));
+            dataStyleIds[i] = styles.styleId(template.getDataStyles().get(i));
+        }
+
+        baseSheetName = sheetName;
+        startSheet(sheetName);
+    }
+
+    /**
+     * Estimates column widths from the first rows of each sheet instead of using
+     * the template widths. Call before {@link #open}.
+     */
+    public void setAutoWidth(boolean autoWidth) {
+        this.widths = autoWidth ? new ColumnWidthEstimator() : null;
+    }
+
+    /**
+     * Data rows per sheet before rolling over to a new sheet ("Students (2)", ...),
+     * capped at the Excel limit. Call before {@link #open}.
+     */
+    public void setMaxRowsPerSheet(long maxRowsPerSheet) {
+        this.maxRowsPerSheet = Math.min(maxRowsPerSheet, RollingPolicy.EXCEL_MAX_DATA_ROWS);
+    }
+
+    /**
+     * Compression level / parallelism of the zip entries. Call before {@link #open}.
+     */
+    public void setCompression(ExportCompression compression) {
+        this.compression = compression;
+    }
+
+    @Override
+    public ExcelRowWriter nextRow() throws IOException {
+        closeRow();
+        // currentRow tính cả dòng header
+        if (currentRow > maxRowsPerSheet) {
+            endSheet();
+            startSheet(SheetNames.rollover(baseSheetName, sheetNames.size() + 1));
+        }
+        if (previewing && currentRow > WIDTH_SAMPLE_ROWS) {
+            endPreview();
+        }
+        startRow();
+        return rowWriter;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return counter.getCount();
+    }
+
+    @Override
+    public void finish(OutputStream out) throws IOException {
+        if (target != null) {
+            if (out != target) {
+                throw new IllegalStateException("Export is bound to another output stream");
+            }
+            completeZip();
+            // Không close stream của caller
+            zip.flush();
+            zip = null;
+            return;
+        }
+
+        completeZip();
+        zip.close();
+        zip = null;
+        Files.copy(tempFile, out);
+        out.flush();
+    }
+
+    @Override
+    public void finish(Path path) throws IOException {
+        if (target != null) {
+            throw new IllegalStateException("Export is bound to an output stream");
+        }
+        completeZip();
+        zip.close();
+        zip = null;
+
+        Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+        tempFile = null;
+    }
+
+    @Override
+    public void close() {
+        if (zip != null && target == null) {
+            try {
+                zip.close();
+            } catch (IOException ignore) {
+            }
+            zip = null;
+        }
+        if (tempFile != null) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignore) {
+            }
+            tempFile = null;
+        }
+    }
+
+    private void completeZip() throws IOException {
+        endSheet();
+        writeWorkbookParts();
+        xml.flush();
+        zip.finish();
+    }
+
+    private void startSheet(String sheetName) throws IOException {
+        sheetNames.add(sheetName);
+        zip.putNextEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml");
+        sheetOpen = true;
+        currentRow = 0;
+
+        List<String> headerValues = template.getHeaderValues();
+        if (widths != null) {
+            // Giữ các dòng đầu trong bộ nhớ, ghi <cols> khi đã có mẫu
+            if (preview == null) {
+                preview = new ByteArrayOutputStream(64 * 1024);
+                previewXml = new XmlCharBuffer(preview, BUFFER_CHARS);
+            }
+            widths = new ColumnWidthEstimator();
+            for (int i = 0; i < headerValues.size(); i++) {
+                widths.header(i, headerValues.get(i));
+            }
+            xml = previewXml;
+            previewing = true;
+        } else {
+            writeSheetHead();
+        }
+
+        // Clone header
+        startRow();
+        for (int i = 0; i < headerValues.size(); i++) {
+            writeInlineString(i, headerStyleIds[i], headerValues.get(i));
+        }
+        closeRow();
+    }
+
+    private void writeSheetHead() throws IOException {
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<worksheet xmlns=\"").append(NS_MAIN).append("\" xmlns:r=\"").append(NS_REL).append("\">");
+
+        int columns = template.getColumnCount();
+        if (widths != null) {
+            columns = Math.max(columns, widths.getColumnCount());
+        }
+        if (columns > 0) {
+            xml.append("<cols>");
+            for (int i = 0; i < columns; i++) {
+                int width = widths != null ? widths.width(i, template.getColumnWidth(i)) : template.getColumnWidth(i);
+                xml.append("<col min=\"").append(i + 1).append("\" max=\"").append(i + 1)
+                        .append("\" width=\"").append(width / 256.0)
+                        .append("\" customWidth=\"1\"/>");
+            }
+            xml.append("</cols>");
+        }
+        xml.append("<sheetData>");
+    }
+
+    // Đủ mẫu: ghi head của sheet (có <cols>) rồi các dòng đã giữ
+    private void endPreview() throws IOException {
+        previewXml.flush();
+        xml = zipXml;
+        previewing = false;
+        writeSheetHead();
+        zipXml.flush();
+        preview.writeTo(zip.data());
+        preview.reset();
+    }
+
+    private void endSheet() throws IOException {
+        if (!sheetOpen) {
+            return;
+        }
+        closeRow();
+        if (previewing) {
+            endPreview();
+        }
+        xml.append("</sheetData></worksheet>");
+        xml.flush();
+        zip.closeEntry();
+        sheetOpen = false;
+    }
+
+    private void startRow() throws IOException {
+        currentRow++;
+        xml.append("<row r=\"").append(currentRow).append("\">");
+        rowOpen = true;
+    }
+
+    private void closeRow() throws IOException {
+        if (rowOpen) {
+            xml.append("</row>");
+            rowOpen = false;
+        }
+    }
+
+    private void writeCellStart(int column, int styleId) throws IOException {
+        xml.append("<c r=\"").append(columnRef(column)).append(currentRow).append('"');
+        if (styleId != 0) {
+            xml.append(" s=\"").append(styleId).append('"');
+        }
+    }
+
+    private void writeInlineString(int column, int styleId, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        writeCellStart(column, styleId);
+        xml.append(" t=\"inlineStr\"><is><t");
+        if (!value.isEmpty() && (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ')) {
+            xml.append(" xml:space=\"preserve\"");
+        }
+        xml.append('>').appendEscaped(value).append("</t></is></c>");
+    }
+
+    private void writeSharedString(int column, int styleId, int index) throws IOException {
+        writeCellStart(column, styleId);
+        xml.append(" t=\"s\"><v>").append(index).append("</v></c>");
+    }
+
+    private int dataStyleId(int column) {
+        return column < dataStyleIds.length ? dataStyleIds[column] : 0;
+    }
+
+    private char[] columnRef(int column) {
+        while (columnRefs.size() <= column) {
+            columnRefs.add(columnName(columnRefs.size()).toCharArray());
+        }
+        return columnRefs.get(column);
+    }
+
+    private static String columnName(int column) {
+        StringBuilder sb = new StringBuilder();
+        for (int n = column + 1; n > 0; n = (n - 1) / 26) {
+            sb.append((char) ('A' + (n - 1) % 26));
+        }
+        return sb.reverse().toString();
+    }
+
+    private void writeWorkbookParts() throws IOException {
+        putEntry("xl/styles.xml");
+        styles.write(xml);
+
+        boolean hasSharedStrings = sharedStrings != null && !sharedStrings.isEmpty();
+        if (hasSharedStrings) {
+            putEntry("xl/sharedStrings.xml");
+            sharedStrings.write(xml);
+        }
+
+        putEntry("xl/workbook.xml");
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<workbook xmlns=\"").append(NS_MAIN).append("\" xmlns:r=\"").append(NS_REL).append("\"><sheets>");
+        for (int i = 0; i < sheetNames.size(); i++) {
+            xml.append("<sheet name=\"").appendEscaped(sheetNames.get(i))
+                    .append("\" sheetId=\"").append(i + 1)
+                    .append("\" r:id=\"rId").append(i + 1).append("\"/>");
+        }
+        xml.append("</sheets></workbook>");
+
+        putEntry("xl/_rels/workbook.xml.rels");
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 0; i < sheetNames.size(); i++) {
+            xml.append("<Relationship Id=\"rId").append(i + 1)
+                    .append("\" Type=\"").append(NS_REL).append("/worksheet\" Target=\"worksheets/sheet")
+                    .append(i + 1).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(sheetNames.size() + 1)
+                .append("\" Type=\"").append(NS_REL).append("/styles\" Target=\"styles.xml\"/>");
+        if (hasSharedStrings) {
+            xml.append("<Relationship Id=\"rId").append(sheetNames.size() + 2)
+                    .append("\" Type=\"").append(NS_REL).append("/sharedStrings\" Target=\"sharedStrings.xml\"/>");
+        }
+        xml.append("</Relationships>");
+
+        putEntry("_rels/.rels");
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">")
+                .append("<Relationship Id=\"rId1\" Type=\"").append(NS_REL)
+                .append("/officeDocument\" Target=\"xl/workbook.xml\"/></Relationships>");
+
+        putEntry("[Content_Types].xml");
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        if (hasSharedStrings) {
+            xml.append("<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>");
+        }
+        for (int i = 0; i < sheetNames.size(); i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i + 1)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        xml.append("</Types>");
+    }
+
+    private void putEntry(String name) throws IOException {
+        xml.flush();
+        zip.putNextEntry(name);
+    }
+
+    private class StreamingRowWriter implements ExcelRowWriter {
+
+        @Override
+        public void setString(int column, String value) {
+            try {
+                if (previewing) {
+                    widths.string(column, value);
+                }
+                int index = value != null && sharedStrings != null ? sharedStrings.indexOf(column, value) : -1;
+                if (index >= 0) {
+                    writeSharedString(column, dataStyleId(column), index);
+                    return;
+                }
+                writeInlineString(column, dataStyleId(column), value);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing Excel", e);
+            }
+        }
+
+        @Override
+        public void setNumber(int column, double value) {
+            if (!Double.isFinite(value)) {
+                return;
+            }
+            if (previewing) {
+                widths.number(column, value);
+            }
+            try {
+                writeCellStart(column, dataStyleId(column));
+                xml.append("><v>").append(value).append("</v></c>");
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing Excel", e);
+            }
+        }
+
+        @Override
+        public void setNumber(int column, long value) {
+            if (previewing) {
+                widths.number(column, value);
+            }
+            try {
+                writeCellStart(column, dataStyleId(column));
+                xml.append("><v>").append(value).append("</v></c>");
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing Excel", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.demo.excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ExportSink} backed by a POI {@link SXSSFWorkbook}.
+ * The workbook can only be serialized as a whole, so a bound target
+ * receives the bytes on finish, not while rows are appended.
+ * <p>
+ * With a {@link SxssfTuner} the window is planned per export: small exports
+ * keep all their rows in memory, larger ones flush every {@code window}
+ * rows and report the flush time to the tuner. Both run on SXSSF, so an
+ * export that outgrows its row hint starts flushing instead of filling the heap.
+ */
+public class SxssfExportSink implements ExportSink {
+
+    private final SxssfTuner tuner;
+    private final long expectedRows;
+
+    private int rowAccessWindowSize;
+    private boolean compressTempFiles = true;
+    // Window đã tính lại theo row đo được chưa
+    private boolean resized;
+
+    private Workbook workbook;
+    private OutputStream target;
+    private Sheet sheet;
+    private int currentRowIndex;
+
+    private String sheetName;
+    private long maxRowsPerSheet = RollingPolicy.EXCEL_MAX_DATA_ROWS;
+    private final List<Sheet> sheets = new ArrayList<>();
+
+    private ColumnWidthEstimator widths;
+    private ExcelTemplate template;
+
+    private ExcelStylePool stylePool;
+    private CellStyle[] headerStyles;
+    private CellStyle[] dataStyles;
+
+    private final PoiRowWriter rowWriter = new PoiRowWriter();
+
+    public SxssfExportSink(int rowAccessWindowSize) {
+        this.tuner = null;
+        this.expectedRows = 0;
+        this.rowAccessWindowSize = rowAccessWindowSize;
+    }
+
+    /**
+     * @param expectedRows row count hint for the tuner, 0 if unknown
+     */
+    public SxssfExportSink(SxssfTuner tuner, long expectedRows) {
+        this.tuner = tuner;
+        this.expectedRows = expectedRows;
+    }
+
+    /**
+     * Samples the written values and sets the column widths on finish.
+     */
+    public void setAutoWidth(boolean autoWidth) {
+        this.widths = autoWidth ? new ColumnWidthEstimator() : null;
+    }
+
+    /**
+     * Data rows per sheet before rolling over to a new sheet ("Students (2)", ...),
+     * capped at the Excel limit. Call before {@link #open}.
+     */
+    public void setMaxRowsPerSheet(long maxRowsPerSheet) {
+        this.maxRowsPerSheet = Math.min(maxRowsPerSheet, RollingPolicy.EXCEL_MAX_DATA_ROWS);
+    }
+
+    @Override
+    public void open(ExcelTemplate template, String sheetName, OutputStream target) {
+        this.target = target;
+        this.template = template;
+        this.sheetName = sheetName;
+        List<String> headerValues = template.getHeaderValues();
+
+        workbook = createWorkbook(template.getColumnCount());
+
+        stylePool = new ExcelStylePool(workbook);
+
+        // Style header / data: tạo 1 lần, dùng chung cho mọi sheet
+        headerStyles = new CellStyle[headerValues.size()];
+        for (int i = 0; i < headerStyles.length; i++) {
+            headerStyles[i] = stylePool.get(template.getHeaderStyles().get(i));
+            if (widths != null) {
+                widths.header(i, headerValues.get(i));
+            }
+        }
+        dataStyles = new CellStyle[template.getColumnCount()];
+        for (int i = 0; i < dataStyles.length; i++) {
+            dataStyles[i] = stylePool.get(template.getDataStyles().get(i));
+        }
+
+        startSheet(sheetName);
+    }
+
+    private void startSheet(String name) {
+        sheet = workbook.createSheet(name);
+        sheets.add(sheet);
+
+        // Clone header
+        List<String> headerValues = template.getHeaderValues();
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < headerValues.size(); i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headerValues.get(i));
+            cell.setCellStyle(headerStyles[i]);
+            sheet.setColumnWidth(i, template.getColumnWidth(i));
+        }
+
+        currentRowIndex = 1;
+    }
+
+    // Sheet đầy: đẩy hết row của sheet cũ ra temp file rồi mở sheet mới
+    private void rollOver() throws IOException {
+        if (sheet instanceof SXSSFSheet sxssfSheet) {
+            sxssfSheet.flushRows(0);
+        }
+        startSheet(SheetNames.rollover(sheetName, sheets.size() + 1));
+    }
+
+    private Workbook createWorkbook(int columnCount) {
+        if (tuner != null) {
+            SxssfTuner.Plan plan = tuner.plan(columnCount, expectedRows);
+            rowAccessWindowSize = plan.getWindowSize();
+            compressTempFiles = plan.isCompressTempFiles();
+            tuner.exportOpened();
+        }
+        // Flush bằng tay (xem nextRow) để đo thời gian mỗi lần flush
+        SXSSFWorkbook sxssf = new SXSSFWorkbook(tuner != null ? -1 : rowAccessWindowSize);
+        sxssf.setCompressTempFiles(compressTempFiles);
+        return sxssf;
+    }
+
+    @Override
+    public PoiRowWriter nextRow() throws IOException {
+        if (currentRowIndex > maxRowsPerSheet) {
+            rollOver();
+        }
+        if (tuner != null && rowAccessWindowSize > 0 && currentRowIndex % rowAccessWindowSize == 0) {
+            if (!resized) {
+                resized = true;
+                resizeWindow();
+            }
+            long start = System.nanoTime();
+            ((SXSSFSheet) sheet).flushRows(0);
+            tuner.recordFlush(System.nanoTime() - start);
+        }
+        rowWriter.row = sheet.createRow(currentRowIndex++);
+        return rowWriter;
+    }
+
+    // Đo heap của các row sắp flush lần đầu, tính lại window cho phần còn lại
+    private void resizeWindow() {
+        long bytes = 0;
+        int rows = 0;
+        for (Row row : sheet) {
+            if (row.getRowNum() == 0) {
+                continue;
+            }
+            rows++;
+            for (Cell cell : row) {
+                bytes += SxssfTuner.cellHeapBytes(cell.getCellType() == CellType.STRING
+                        ? cell.getStringCellValue().length() : -1);
+            }
+        }
+        if (rows > 0) {
+            rowAccessWindowSize = tuner.resize(bytes, rows);
+        }
+    }
+
+    /**
+     * Rows kept in memory before a flush (-1 = never flush, only without a tuner).
+     */
+    public int getRowAccessWindowSize() {
+        return rowAccessWindowSize;
+    }
+
+    @Override
+    public void finish(OutputStream out) throws IOException {
+        if (target != null && out != target) {
+            throw new IllegalStateException("Export is bound to another output stream");
+        }
+        applyWidths();
+        workbook.write(out);
+        out.flush();
+    }
+
+    // SXSSF ghi <cols> khi write, nên set width lúc này vẫn kịp dù row đã flush
+    private void applyWidths() {
+        if (widths == null) {
+            return;
+        }
+        int columns = Math.max(template.getColumnCount(), widths.getColumnCount());
+        for (int i = 0; i < columns; i++) {
+            int width = widths.width(i, template.getColumnWidth(i));
+            for (Sheet s : sheets) {
+                s.setColumnWidth(i, width);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (workbook == null) {
+            return;
+        }
+        try {
+            if (workbook instanceof SXSSFWorkbook sxssf) {
+                sxssf.dispose();
+            }
+            workbook.close();
+        } catch (Exception ignore) {
+        }
+        // Sau dispose: temp file đã xóa, tuner trừ khỏi quota
+        if (tuner != null) {
+            tuner.exportClosed();
+        }
+        workbook = null;
+    }
+
+    public ExcelStylePool getStylePool() {
+        return stylePool;
+    }
+
+    public CellStyle dataStyle(int column) {
+        return column < dataStyles.length ? dataStyles[column] : null;
+    }
+
+    /**
+     * Creates a cell with the pooled data style of its column.
+     */
+    public Cell createCell(Row row, int column) {
+        Cell cell = row.createCell(column);
+        CellStyle style = dataStyle(column);
+        if (style != null) {
+            cell.setCellStyle(style);
+        }
+        return cell;
+    }
+
+    /**
+     * Row writer over the current POI row. Also exposes the row itself
+     * for exporters that need POI features (formulas, merged cells, ...).
+     */
+    public class PoiRowWriter implements ExcelRowWriter {
+
+        private Row row;
+
+        public Row getRow() {
+            return row;
+        }
+
+        @Override
+        public void setString(int column, String value) {
+            createCell(row, column).setCellValue(value);
+            if (widths != null) {
+                widths.string(column, value);
+            }
+        }
+
+        @Override
+        public void setNumber(int column, double value) {
+            createCell(row, column).setCellValue(value);
+            if (widths != null) {
+                widths.number(column, value);
+            }
+        }
+
+        @Override
+        public void setNumber(int column, long value) {
+            createCell(row, column).setCellValue((double) value);
+            if (widths != null) {
+                widths.number(column, value);
+            }
+        }
+    }
+}
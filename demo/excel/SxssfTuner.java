@@ -0,0 +1,232 @@
+package com.example.demo.excel;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
+import org.apache.poi.util.TempFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sizes the SXSSF row window from the free heap instead of a fixed 200 rows,
+ * and owns the temp-file policy and flush metrics of {@link SxssfExportSink}.
+ * <ul>
+ *     <li>window = heapFraction × free heap / running SXSSF exports / row size; the row
+ *     size is a per-column guess until the first flush, then measured from the flushed rows</li>
+ *     <li>exports expected to be small keep up to {@code in-memory-max-rows} rows in memory
+ *     and never flush; if more rows arrive than the hint promised, they flush like any
+ *     other export instead of growing the heap</li>
+ *     <li>temp files go to {@code export.sxssf.temp-dir} under a disk quota, if configured</li>
+ * </ul>
+ * POI has a single temp-file strategy per JVM ({@link TempFile#setTempFileCreationStrategy}),
+ * so setting {@code export.sxssf.temp-dir} moves <em>every</em> POI temp file of the
+ * application (not only exports) into that directory and under the quota. The default
+ * strategy is restored when the tuner is destroyed.
+ */
+@Slf4j
+@Component
+public class SxssfTuner {
+
+    // Ước lượng heap của 1 row / 1 cell SXSSF (object + value + style ref)
+    private static final int ROW_OVERHEAD_BYTES = 120;
+    // Chỉ dùng trước lần flush đầu, sau đó đo từ row thật
+    private static final int CELL_HEAP_BYTES = 160;
+    private static final int CELL_OBJECT_BYTES = 72;
+    private static final int STRING_OBJECT_BYTES = 40;
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+    private final double heapFraction;
+    private final int minWindow;
+    private final int maxWindow;
+    private final long inMemoryMaxRows;
+    private final boolean compressTempFiles;
+    private final String tempDir;
+    private final long diskQuotaBytes;
+
+    private QuotaTempFileCreationStrategy tempFiles;
+
+    private final AtomicInteger activeExports = new AtomicInteger();
+    private final AtomicInteger lastWindow = new AtomicInteger();
+    private final AtomicLong lastRowBytes = new AtomicLong();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private Timer flushTimer;
+
+    public SxssfTuner() {
+        this(0.10, 100, 10_000, 20_000, true, "", 10L * 1024 * 1024 * 1024);
+    }
+
+    @Autowired
+    public SxssfTuner(@Value("${export.sxssf.heap-fraction:0.10}") double heapFraction,
+                      @Value("${export.sxssf.min-window:100}") int minWindow,
+                      @Value("${export.sxssf.max-window:10000}") int maxWindow,
+                      @Value("${export.sxssf.in-memory-max-rows:20000}") long inMemoryMaxRows,
+                      @Value("${export.sxssf.compress-temp-files:true}") boolean compressTempFiles,
+                      @Value("${export.sxssf.temp-dir:}") String tempDir,
+                      @Value("${export.sxssf.disk-quota-bytes:10737418240}") long diskQuotaBytes) {
+        this.heapFraction = heapFraction;
+        this.minWindow = minWindow;
+        this.maxWindow = maxWindow;
+        this.inMemoryMaxRows = inMemoryMaxRows;
+        this.compressTempFiles = compressTempFiles;
+        this.tempDir = tempDir;
+        this.diskQuotaBytes = diskQuotaBytes;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!tempDir.isBlank()) {
+            // POI dùng 1 strategy chung cho cả JVM
+            tempFiles = new QuotaTempFileCreationStrategy(Path.of(tempDir), diskQuotaBytes);
+            TempFile.setTempFileCreationStrategy(tempFiles);
+            log.info("SXSSF temp files in {} (quota {} bytes)", tempFiles.getDirectory(), diskQuotaBytes);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (tempFiles != null) {
+            TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy());
+            tempFiles = null;
+        }
+    }
+
+    @Autowired(required = false)
+    public void bindMetrics(MeterRegistry registry) {
+        flushTimer = Timer.builder("export.sxssf.flush")
+                .description("SXSSF row flushes to temp files")
+                .register(registry);
+        Gauge.builder("export.sxssf.temp.bytes", this, SxssfTuner::getTempFileBytes)
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("export.sxssf.window", lastWindow, AtomicInteger::get)
+                .register(registry);
+        Gauge.builder("export.sxssf.active", activeExports, AtomicInteger::get)
+                .register(registry);
+    }
+
+    /**
+     * Decides how the next SXSSF export runs.
+     *
+     * @param expectedRows row count hint, or 0 if unknown
+     */
+    public Plan plan(int columnCount, long expectedRows) {
+        if (expectedRows > 0 && expectedRows <= inMemoryMaxRows) {
+            // Window = giới hạn in-memory: hint sai thì flush, không OOM
+            return new Plan(true, (int) Math.min(inMemoryMaxRows, Integer.MAX_VALUE), compressTempFiles);
+        }
+
+        long rowBytes = ROW_OVERHEAD_BYTES + (long) Math.max(1, columnCount) * CELL_HEAP_BYTES;
+        return new Plan(false, window(rowBytes), compressTempFiles);
+    }
+
+    /**
+     * Window for the rest of an export, from the heap size of its first rows
+     * (see {@link #cellHeapBytes}).
+     */
+    public int resize(long sampledBytes, int sampledRows) {
+        long rowBytes = ROW_OVERHEAD_BYTES + sampledBytes / Math.max(1, sampledRows);
+        lastRowBytes.set(rowBytes);
+        return window(rowBytes);
+    }
+
+    /**
+     * Heap estimate of one SXSSF cell holding {@code stringLength} chars (-1 for a non-string cell).
+     */
+    static long cellHeapBytes(int stringLength) {
+        return stringLength < 0 ? CELL_OBJECT_BYTES : CELL_OBJECT_BYTES + STRING_OBJECT_BYTES + 2L * stringLength;
+    }
+
+    private int window(long rowBytes) {
+        MemoryUsage heap = memoryBean.getHeapMemoryUsage();
+        long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        long free = Math.max(0, max - heap.getUsed());
+        int running = Math.max(1, activeExports.get());
+
+        long window = (long) (free * heapFraction / running / rowBytes);
+        int size = (int) Math.max(minWindow, Math.min(maxWindow, window));
+        lastWindow.set(size);
+        return size;
+    }
+
+    void exportOpened() {
+        activeExports.incrementAndGet();
+    }
+
+    void exportClosed() {
+        activeExports.decrementAndGet();
+        if (tempFiles != null) {
+            // Temp file của export vừa dispose không còn tính vào quota
+            tempFiles.refresh();
+        }
+    }
+
+    /**
+     * Records a flush and fails it if the temp files are now over the disk quota.
+     */
+    void recordFlush(long nanos) throws IOException {
+        flushCount.increment();
+        flushNanos.add(nanos);
+        maxFlushNanos.accumulateAndGet(nanos, Math::max);
+        if (flushTimer != null) {
+            flushTimer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+        if (tempFiles != null) {
+            tempFiles.checkQuota();
+        }
+    }
+
+    public long getTempFileBytes() {
+        return tempFiles != null ? tempFiles.usedBytes() : 0L;
+    }
+
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    public double getAverageFlushMillis() {
+        long count = flushCount.sum();
+        return count == 0 ? 0 : flushNanos.sum() / 1e6 / count;
+    }
+
+    public double getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1e6;
+    }
+
+    public int getLastWindow() {
+        return lastWindow.get();
+    }
+
+    /**
+     * Row size measured by the last {@link #resize}, 0 before any flush.
+     */
+    public long getLastRowBytes() {
+        return lastRowBytes.get();
+    }
+
+    @lombok.Value
+    public static class Plan {
+        // Hint nhỏ: window = in-memory-max-rows, không flush nếu hint đúng
+        boolean inMemory;
+        int windowSize;
+        boolean compressTempFiles;
+    }
+}
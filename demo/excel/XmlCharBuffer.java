@@ -0,0 +1,150 @@
+package com.example.demo.excel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Reusable char buffer for writing XML to a byte stream.
+ * Numbers and escaped text are appended without intermediate Strings and the
+ * buffer is UTF-8 encoded by hand into a reusable byte array on flush.
+ * Not thread-safe.
+ */
+final class XmlCharBuffer {
+
+    private final OutputStream out;
+    private final char[] chars;
+    private final byte[] bytes;
+    private int pos;
+
+    XmlCharBuffer(OutputStream out, int capacity) {
+        this.out = out;
+        // Đủ chỗ cho 1 số long (20 char) sau khi flush
+        this.chars = new char[Math.max(capacity, 32)];
+        // UTF-8: tối đa 3 byte cho 1 char (surrogate pair = 4 byte / 2 char)
+        this.bytes = new byte[chars.length * 3];
+    }
+
+    XmlCharBuffer append(char c) throws IOException {
+        if (pos == chars.length) {
+            flush();
+        }
+        chars[pos++] = c;
+        return this;
+    }
+
+    /**
+     * Appends markup as-is (no escaping).
+     */
+    XmlCharBuffer append(String s) throws IOException {
+        int len = s.length();
+        int off = 0;
+        while (off < len) {
+            if (pos == chars.length) {
+                flush();
+            }
+            int n = Math.min(len - off, chars.length - pos);
+            s.getChars(off, off + n, chars, pos);
+            pos += n;
+            off += n;
+        }
+        return this;
+    }
+
+    XmlCharBuffer append(char[] s) throws IOException {
+        for (char c : s) {
+            append(c);
+        }
+        return this;
+    }
+
+    XmlCharBuffer append(long v) throws IOException {
+        if (v == Long.MIN_VALUE) {
+            return append(Long.toString(v));
+        }
+        if (pos + 20 > chars.length) {
+            flush();
+        }
+        if (v < 0) {
+            chars[pos++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) {
+            digits++;
+        }
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            chars[i] = (char) ('0' + (v % 10));
+            v /= 10;
+        }
+        pos += digits;
+        return this;
+    }
+
+    XmlCharBuffer append(double v) throws IOException {
+        if (v == (long) v && Math.abs(v) < 1e15) {
+            return append((long) v);
+        }
+        return append(Double.toString(v));
+    }
+
+    /**
+     * Appends text content / attribute value with XML escaping.
+     * Characters not allowed in XML 1.0 are dropped.
+     */
+    XmlCharBuffer appendEscaped(String s) throws IOException {
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '&' -> append("&amp;");
+                case '<' -> append("&lt;");
+                case '>' -> append("&gt;");
+                case '"' -> append("&quot;");
+                default -> {
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        append(c);
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    void flush() throws IOException {
+        int end = pos;
+        // Không cắt đôi surrogate pair giữa 2 lần flush
+        if (end > 0 && Character.isHighSurrogate(chars[end - 1])) {
+            end--;
+        }
+
+        int b = 0;
+        for (int i = 0; i < end; i++) {
+            char c = chars[i];
+            if (c < 0x80) {
+                bytes[b++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[b++] = (byte) (0xC0 | (c >> 6));
+                bytes[b++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                int cp = Character.toCodePoint(c, chars[++i]);
+                bytes[b++] = (byte) (0xF0 | (cp >> 18));
+                bytes[b++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                bytes[b++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[b++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[b++] = '?';
+            } else {
+                bytes[b++] = (byte) (0xE0 | (c >> 12));
+                bytes[b++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[b++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        out.write(bytes, 0, b);
+
+        if (end < pos) {
+            chars[0] = chars[end];
+            pos = 1;
+        } else {
+            pos = 0;
+        }
+    }
+}
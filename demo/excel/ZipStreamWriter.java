@@ -0,0 +1,263 @@
+package com.example.demo.excel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming ZIP writer (DEFLATED entries with data descriptors, ZIP64 when
+ * needed) whose entry data goes through {@link DeflateBlockOutputStream}, so entries
+ * can be deflated block-parallel. Used instead of {@link java.util.zip.ZipOutputStream},
+ * which only deflates on the calling thread.
+ * <p>
+ * Entry data is written to {@link #data()}; {@link #finish()} writes the central
+ * directory and does not close the target.
+ * <p>
+ * Layout follows {@link java.util.zip.ZipOutputStream}: local headers never carry a
+ * ZIP64 extra, the data descriptor uses 8-byte sizes only when the entry actually
+ * passed 4 GiB, and the central directory gets ZIP64 fields only for such entries
+ * (or offsets past 4 GiB). {@link java.util.zip.ZipInputStream} picks the descriptor
+ * width from the inflated sizes, so it reads both cases.
+ */
+final class ZipStreamWriter implements Closeable {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+
+    // bit 3: size/crc trong data descriptor, bit 11: tên UTF-8
+    private static final int FLAGS = 0x0808;
+    private static final int DEFLATED = 8;
+    private static final long ZIP32_LIMIT = 0xFFFFFFFFL;
+
+    private final CountingOutputStream out;
+    private final ExportCompression compression;
+    private final int dosTime;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private Entry current;
+    private DeflateBlockOutputStream deflate;
+    private boolean finished;
+
+    private final OutputStream data = new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+            entryStream().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                // Flush buffer rỗng giữa 2 entry
+                return;
+            }
+            entryStream().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    };
+
+    ZipStreamWriter(OutputStream target, ExportCompression compression) {
+        this.out = new CountingOutputStream(target);
+        this.compression = compression;
+        this.dosTime = dosTime(LocalDateTime.now());
+    }
+
+    /**
+     * Stream of the current entry's uncompressed data.
+     */
+    OutputStream data() {
+        return data;
+    }
+
+    void putNextEntry(String name) throws IOException {
+        closeEntry();
+        current = new Entry(name.getBytes(StandardCharsets.UTF_8), out.getCount());
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(30 + current.name.length);
+        writeInt(header, LOCAL_HEADER);
+        writeShort(header, 20);
+        writeShort(header, FLAGS);
+        writeShort(header, DEFLATED);
+        writeInt(header, dosTime);
+        writeInt(header, 0);       // crc
+        writeInt(header, 0);       // compressed size
+        writeInt(header, 0);       // uncompressed size
+        writeShort(header, current.name.length);
+        writeShort(header, 0);     // extra
+        header.write(current.name);
+        header.writeTo(out);
+
+        deflate = new DeflateBlockOutputStream(out, compression);
+    }
+
+    void closeEntry() throws IOException {
+        if (current == null) {
+            return;
+        }
+        deflate.finish();
+        current.crc = deflate.getCrc();
+        current.compressedSize = deflate.getCompressedSize();
+        current.size = deflate.getUncompressedSize();
+
+        ByteArrayOutputStream descriptor = new ByteArrayOutputStream(24);
+        writeInt(descriptor, DATA_DESCRIPTOR);
+        writeInt(descriptor, (int) current.crc);
+        if (current.isZip64()) {
+            writeLong(descriptor, current.compressedSize);
+            writeLong(descriptor, current.size);
+        } else {
+            writeInt(descriptor, (int) current.compressedSize);
+            writeInt(descriptor, (int) current.size);
+        }
+        descriptor.writeTo(out);
+
+        entries.add(current);
+        current = null;
+        deflate = null;
+    }
+
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        closeEntry();
+        finished = true;
+
+        long centralStart = out.getCount();
+        ByteArrayOutputStream central = new ByteArrayOutputStream(entries.size() * 80);
+        for (Entry e : entries) {
+            boolean zip64 = e.isZip64() || e.offset >= ZIP32_LIMIT;
+            ByteArrayOutputStream extra = new ByteArrayOutputStream();
+            if (zip64) {
+                writeShort(extra, 0x0001);
+                writeShort(extra, 24);
+                writeLong(extra, e.size);
+                writeLong(extra, e.compressedSize);
+                writeLong(extra, e.offset);
+            }
+            writeInt(central, CENTRAL_HEADER);
+            writeShort(central, zip64 ? 45 : 20);   // made by
+            writeShort(central, zip64 ? 45 : 20);   // needed
+            writeShort(central, FLAGS);
+            writeShort(central, DEFLATED);
+            writeInt(central, dosTime);
+            writeInt(central, (int) e.crc);
+            writeInt(central, zip64 ? (int) ZIP32_LIMIT : (int) e.compressedSize);
+            writeInt(central, zip64 ? (int) ZIP32_LIMIT : (int) e.size);
+            writeShort(central, e.name.length);
+            writeShort(central, extra.size());
+            writeShort(central, 0);    // comment
+            writeShort(central, 0);    // disk
+            writeShort(central, 0);    // internal attrs
+            writeInt(central, 0);      // external attrs
+            writeInt(central, zip64 ? (int) ZIP32_LIMIT : (int) e.offset);
+            central.write(e.name);
+            extra.writeTo(central);
+        }
+        central.writeTo(out);
+        long centralSize = out.getCount() - centralStart;
+
+        ByteArrayOutputStream end = new ByteArrayOutputStream(98);
+        boolean zip64 = entries.size() >= 0xFFFF || centralStart >= ZIP32_LIMIT || centralSize >= ZIP32_LIMIT;
+        if (zip64) {
+            long zip64EndStart = out.getCount();
+            writeInt(end, ZIP64_END_OF_CENTRAL);
+            writeLong(end, 44);
+            writeShort(end, 45);
+            writeShort(end, 45);
+            writeInt(end, 0);
+            writeInt(end, 0);
+            writeLong(end, entries.size());
+            writeLong(end, entries.size());
+            writeLong(end, centralSize);
+            writeLong(end, centralStart);
+
+            writeInt(end, ZIP64_LOCATOR);
+            writeInt(end, 0);
+            writeLong(end, zip64EndStart);
+            writeInt(end, 1);
+        }
+        writeInt(end, END_OF_CENTRAL);
+        writeShort(end, 0);
+        writeShort(end, 0);
+        writeShort(end, Math.min(entries.size(), 0xFFFF));
+        writeShort(end, Math.min(entries.size(), 0xFFFF));
+        writeInt(end, (int) Math.min(centralSize, ZIP32_LIMIT));
+        writeInt(end, (int) Math.min(centralStart, ZIP32_LIMIT));
+        writeShort(end, 0);
+        end.writeTo(out);
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!finished && current != null) {
+                // Bỏ entry dở, không cần zip hợp lệ
+                deflate.discard();
+                current = null;
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private OutputStream entryStream() throws IOException {
+        if (deflate == null) {
+            throw new IOException("No current zip entry");
+        }
+        return deflate;
+    }
+
+    private static int dosTime(LocalDateTime t) {
+        return (t.getYear() - 1980) << 25 | t.getMonthValue() << 21 | t.getDayOfMonth() << 16
+                | t.getHour() << 11 | t.getMinute() << 5 | t.getSecond() >> 1;
+    }
+
+    private static void writeShort(ByteArrayOutputStream b, int v) {
+        b.write(v & 0xFF);
+        b.write((v >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(ByteArrayOutputStream b, int v) {
+        writeShort(b, v & 0xFFFF);
+        writeShort(b, (v >>> 16) & 0xFFFF);
+    }
+
+    private static void writeLong(ByteArrayOutputStream b, long v) {
+        writeInt(b, (int) v);
+        writeInt(b, (int) (v >>> 32));
+    }
+
+    private static final class Entry {
+        final byte[] name;
+        final long offset;
+        long crc;
+        long compressedSize;
+        long size;
+
+        Entry(byte[] name, long offset) {
+            this.name = name;
+            this.offset = offset;
+        }
+
+        boolean isZip64() {
+            return size >= ZIP32_LIMIT || compressedSize >= ZIP32_LIMIT;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.demo.excel.mapping;
+
+/**
+ * How a column value is written.
+ */
+public enum ColumnKind {
+
+    STRING,
+
+    // byte/short/int/long và wrapper: ghi dạng long, không boxing với kiểu primitive
+    INTEGER,
+
+    // float/double, BigDecimal, Number khác
+    DECIMAL
+}
@@ -0,0 +1,357 @@
+package com.example.demo.excel.mapping;
+
+import com.example.demo.excel.ExcelRowWriter;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link ExcelColumn} fields of a DTO compiled into typed writers.
+ * Getters are bound once through {@link LambdaMetafactory}, so writing a row is
+ * a plain interface call per column: no reflection, and primitive getters are
+ * written without boxing. Mappings are cached per class.
+ * <p>
+ * The import side uses the same metadata: setters and the no-arg constructor are
+ * bound the same way, see {@link #newInstance()} and {@link #read(Object, int, String)}.
+ */
+public final class ColumnMapping<T> {
+
+    private static final ClassValue<ColumnMapping<?>> CACHE = new ClassValue<>() {
+        @Override
+        protected ColumnMapping<?> computeValue(Class<?> type) {
+            return compile(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final List<Column> columns;
+    private final List<ColumnWriter<T>> writers;
+
+    // Theo column index, null = cột không đọc được (không có setter)
+    private final List<ColumnReader<T>> readers;
+    private final Supplier<T> constructor;
+
+    private ColumnMapping(Class<T> type, List<Column> columns, List<ColumnWriter<T>> writers,
+                         List<ColumnReader<T>> readers, Supplier<T> constructor) {
+        this.type = type;
+        this.columns = Collections.unmodifiableList(columns);
+        this.writers = List.copyOf(writers);
+        this.readers = Collections.unmodifiableList(readers);
+        this.constructor = constructor;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ColumnMapping<T> of(Class<T> type) {
+        return (ColumnMapping<T>) CACHE.get(type);
+    }
+
+    public void write(T data, ExcelRowWriter row) {
+        for (ColumnWriter<T> writer : writers) {
+            writer.write(data, row);
+        }
+    }
+
+    /**
+     * New DTO for an imported row, through the no-arg constructor.
+     */
+    public T newInstance() {
+        if (constructor == null) {
+            throw new IllegalStateException(type.getName() + " has no accessible no-arg constructor");
+        }
+        return constructor.get();
+    }
+
+    /**
+     * Sets the field mapped to {@code column} from a raw cell value (text, or the
+     * number as written in the sheet XML). Blank values and unmapped columns are ignored.
+     *
+     * @throws IllegalArgumentException if the value does not fit the field type
+     */
+    public void read(T target, int column, String value) {
+        if (column < 0 || column >= readers.size() || value == null || value.isEmpty()) {
+            return;
+        }
+        ColumnReader<T> reader = readers.get(column);
+        if (reader != null) {
+            reader.read(target, value);
+        }
+    }
+
+    /**
+     * Highest mapped column index + 1.
+     */
+    public int getColumnCount() {
+        return readers.size();
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Columns ordered by index.
+     */
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Column {
+        private final int index;
+        // @ExcelColumn(header), rỗng = giữ header của template
+        private final String header;
+        private final String property;
+        private final Class<?> javaType;
+        private final ColumnKind kind;
+        private final boolean sharedStrings;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ColumnMapping<T> compile(Class<T> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.isAnnotationPresent(ExcelColumn.class)) {
+                    fields.add(field);
+                }
+            }
+        }
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("No @ExcelColumn fields on " + type.getName());
+        }
+        fields.sort(Comparator.comparingInt(f -> f.getAnnotation(ExcelColumn.class).index()));
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            List<Column> columns = new ArrayList<>();
+            List<ColumnWriter<T>> writers = new ArrayList<>();
+            int columnCount = fields.get(fields.size() - 1).getAnnotation(ExcelColumn.class).index() + 1;
+            List<ColumnReader<T>> readers = new ArrayList<>(Collections.nCopies(columnCount, null));
+            int previousIndex = -1;
+
+            for (Field field : fields) {
+                ExcelColumn annotation = field.getAnnotation(ExcelColumn.class);
+                int index = annotation.index();
+                if (index == previousIndex) {
+                    throw new IllegalArgumentException("Duplicate @ExcelColumn index " + index + " on " + type.getName());
+                }
+                previousIndex = index;
+
+                Class<?> javaType = field.getType();
+                ColumnKind kind = kindOf(javaType);
+                columns.add(new Column(index, annotation.header(), field.getName(), javaType, kind,
+                        annotation.sharedStrings() && kind == ColumnKind.STRING));
+                writers.add(writer(lookup, getter(type, field), index, javaType));
+
+                Method setter = setter(type, field);
+                if (setter != null) {
+                    readers.set(index, reader(lookup, setter, javaType));
+                }
+            }
+            return new ColumnMapping<>(type, columns, writers, readers, constructor(lookup, type));
+
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot compile column mapping for " + type.getName(), e);
+        }
+    }
+
+    static ColumnKind kindOf(Class<?> javaType) {
+        if (javaType == int.class || javaType == long.class || javaType == short.class || javaType == byte.class
+                || javaType == Integer.class || javaType == Long.class
+                || javaType == Short.class || javaType == Byte.class) {
+            return ColumnKind.INTEGER;
+        }
+        if (javaType == double.class || javaType == float.class || Number.class.isAssignableFrom(javaType)) {
+            return ColumnKind.DECIMAL;
+        }
+        return ColumnKind.STRING;
+    }
+
+    private static Method getter(Class<?> type, Field field) throws NoSuchMethodException {
+        String suffix = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        try {
+            return type.getMethod("get" + suffix);
+        } catch (NoSuchMethodException e) {
+            if (field.getType() == boolean.class) {
+                return type.getMethod("is" + suffix);
+            }
+            throw e;
+        }
+    }
+
+    private static Method setter(Class<?> type, Field field) {
+        String name = "set" + Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        try {
+            return type.getMethod(name, field.getType());
+        } catch (NoSuchMethodException e) {
+            // DTO chỉ dùng để export
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> constructor(MethodHandles.Lookup lookup, Class<T> type) throws Throwable {
+        MethodHandle handle;
+        try {
+            handle = lookup.findConstructor(type, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        return metafactory(lookup, handle, Supplier.class, "get",
+                MethodType.methodType(Object.class), MethodType.methodType(type));
+    }
+
+    private static <T> ColumnReader<T> reader(MethodHandles.Lookup lookup, Method setter,
+                                              Class<?> javaType) throws Throwable {
+        MethodHandle handle = lookup.unreflect(setter);
+
+        // int/long/double: không boxing
+        if (javaType == int.class) {
+            ObjIntConsumer<T> f = metafactory(lookup, handle, ObjIntConsumer.class, "accept",
+                    MethodType.methodType(void.class, Object.class, int.class), handle.type());
+            return (target, value) -> f.accept(target, (int) parseLong(value));
+        }
+        if (javaType == long.class) {
+            ObjLongConsumer<T> f = metafactory(lookup, handle, ObjLongConsumer.class, "accept",
+                    MethodType.methodType(void.class, Object.class, long.class), handle.type());
+            return (target, value) -> f.accept(target, parseLong(value));
+        }
+        if (javaType == double.class) {
+            ObjDoubleConsumer<T> f = metafactory(lookup, handle, ObjDoubleConsumer.class, "accept",
+                    MethodType.methodType(void.class, Object.class, double.class), handle.type());
+            return (target, value) -> f.accept(target, Double.parseDouble(value));
+        }
+
+        Function<String, Object> convert = converter(javaType);
+        if (convert == null) {
+            return null;
+        }
+        // short/byte/float/boolean: nhận wrapper rồi unbox
+        Class<?> boxed = MethodType.methodType(javaType).wrap().returnType();
+        BiConsumer<T, Object> f = metafactory(lookup, handle, BiConsumer.class, "accept",
+                MethodType.methodType(void.class, Object.class, Object.class),
+                handle.type().changeParameterType(1, boxed));
+        return (target, value) -> f.accept(target, convert.apply(value));
+    }
+
+    private static Function<String, Object> converter(Class<?> javaType) {
+        if (javaType == String.class) return value -> value;
+        if (javaType == Integer.class) return value -> (int) parseLong(value);
+        if (javaType == Long.class) return ColumnMapping::parseLong;
+        if (javaType == Short.class || javaType == short.class) return value -> (short) parseLong(value);
+        if (javaType == Byte.class || javaType == byte.class) return value -> (byte) parseLong(value);
+        if (javaType == Double.class) return Double::valueOf;
+        if (javaType == Float.class || javaType == float.class) return Float::valueOf;
+        if (javaType == BigDecimal.class) return BigDecimal::new;
+        if (javaType == Boolean.class || javaType == boolean.class) {
+            return value -> value.equals("1") || value.equalsIgnoreCase("true");
+        }
+        return null;
+    }
+
+    // Số nguyên trong sheet có thể được ghi dạng "20.0" hoặc "1E3"
+    private static long parseLong(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.' || c == 'E' || c == 'e') {
+                double d = Double.parseDouble(value);
+                if (d != Math.rint(d)) {
+                    throw new NumberFormatException("Not an integer: " + value);
+                }
+                return (long) d;
+            }
+        }
+        return Long.parseLong(value);
+    }
+
+    private static <T> ColumnWriter<T> writer(MethodHandles.Lookup lookup, Method getter,
+                                              int index, Class<?> javaType) throws Throwable {
+        MethodHandle handle = lookup.unreflect(getter);
+
+        if (javaType == int.class || javaType == short.class || javaType == byte.class) {
+            ToIntFunction<T> f = bind(lookup, handle, ToIntFunction.class, "applyAsInt", int.class);
+            return (data, row) -> row.setNumber(index, (long) f.applyAsInt(data));
+        }
+        if (javaType == long.class) {
+            ToLongFunction<T> f = bind(lookup, handle, ToLongFunction.class, "applyAsLong", long.class);
+            return (data, row) -> row.setNumber(index, f.applyAsLong(data));
+        }
+        if (javaType == double.class || javaType == float.class) {
+            ToDoubleFunction<T> f = bind(lookup, handle, ToDoubleFunction.class, "applyAsDouble", double.class);
+            return (data, row) -> row.setNumber(index, f.applyAsDouble(data));
+        }
+
+        Function<T, Object> f = bind(lookup, handle, Function.class, "apply", Object.class);
+        if (javaType == String.class) {
+            return (data, row) -> row.setString(index, (String) f.apply(data));
+        }
+        if (javaType == BigDecimal.class) {
+            return (data, row) -> {
+                BigDecimal v = (BigDecimal) f.apply(data);
+                if (v != null) row.setNumber(index, v.doubleValue());
+            };
+        }
+        if (kindOf(javaType) == ColumnKind.INTEGER) {
+            return (data, row) -> {
+                Number v = (Number) f.apply(data);
+                if (v != null) row.setNumber(index, v.longValue());
+            };
+        }
+        if (kindOf(javaType) == ColumnKind.DECIMAL) {
+            return (data, row) -> {
+                Number v = (Number) f.apply(data);
+                if (v != null) row.setNumber(index, v.doubleValue());
+            };
+        }
+        return (data, row) -> {
+            Object v = f.apply(data);
+            if (v != null) row.setString(index, v.toString());
+        };
+    }
+
+    private static <F> F bind(MethodHandles.Lookup lookup, MethodHandle getter,
+                              Class<?> functionType, String methodName, Class<?> erasedReturn) throws Throwable {
+        return metafactory(lookup, getter, functionType, methodName,
+                MethodType.methodType(erasedReturn, Object.class),
+                // short/byte/float được nới về int/double
+                erasedReturn.isPrimitive() ? getter.type().changeReturnType(erasedReturn) : getter.type());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <F> F metafactory(MethodHandles.Lookup lookup, MethodHandle target, Class<?> functionType,
+                                     String methodName, MethodType samType, MethodType instantiatedType) throws Throwable {
+        CallSite site = LambdaMetafactory.metafactory(
+                lookup,
+                methodName,
+                MethodType.methodType(functionType),
+                samType,
+                target,
+                instantiatedType
+        );
+        return (F) site.getTarget().invoke();
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.excel.mapping;
+
+@FunctionalInterface
+interface ColumnReader<T> {
+
+    void read(T target, String value);
+}
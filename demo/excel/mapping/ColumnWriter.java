@@ -0,0 +1,9 @@
+package com.example.demo.excel.mapping;
+
+import com.example.demo.excel.ExcelRowWriter;
+
+@FunctionalInterface
+interface ColumnWriter<T> {
+
+    void write(T data, ExcelRowWriter row);
+}
@@ -0,0 +1,28 @@
+package com.example.demo.excel.mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maps a DTO field to an export column. Read through the field's getter.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ExcelColumn {
+
+    int index();
+
+    /**
+     * Header text of the column, replacing the template's header cell. Empty keeps
+     * the template's text; columns past the template are headed with the field name.
+     */
+    String header() default "";
+
+    /**
+     * Low-cardinality text (status, department, ...): write through the shared-strings
+     * table instead of inline. Falls back to inline when the column has too many values.
+     */
+    boolean sharedStrings() default false;
+}
@@ -0,0 +1,303 @@
+package com.example.demo.excel.sort;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Sorts any number of records with bounded heap: records are buffered up to
+ * {@code maxRecordsInMemory}, each full buffer is sorted and spilled to a temp
+ * file (a run), and the runs are k-way merged through memory-mapped reads.
+ * When there are more than {@code fanIn} runs they are merged in passes first.
+ * Equal records keep their insertion order.
+ * <p>
+ * Typical use with an exporter:
+ * <pre>
+ * try (ExternalSorter&lt;Student&gt; sorter = new ExternalSorter&lt;&gt;(codec, comparing(Student::getSalary), 100_000)) {
+ *     source.forEach(sorter::add);
+ *     sorter.forEachChunk(1000, session::append);
+ * }
+ * </pre>
+ * Single use, not thread-safe.
+ */
+@Slf4j
+public class ExternalSorter<T> implements Iterable<T>, AutoCloseable {
+
+    private static final int DEFAULT_FAN_IN = 64;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final RecordCodec<T> codec;
+    private final Comparator<? super T> order;
+    private final int maxRecordsInMemory;
+
+    private int fanIn = DEFAULT_FAN_IN;
+    private Path tempDir;
+
+    private List<T> buffer = new ArrayList<>();
+    private final List<Run> runs = new ArrayList<>();
+    private final List<RunCursor> openCursors = new ArrayList<>();
+    private long size;
+    private boolean merging;
+
+    public ExternalSorter(RecordCodec<T> codec, Comparator<? super T> order, int maxRecordsInMemory) {
+        if (maxRecordsInMemory <= 0) {
+            throw new IllegalArgumentException("maxRecordsInMemory must be positive");
+        }
+        this.codec = codec;
+        this.order = order;
+        this.maxRecordsInMemory = maxRecordsInMemory;
+    }
+
+    /**
+     * Directory of the run files, the JVM temp dir by default.
+     */
+    public void setTempDir(Path tempDir) {
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Maximum number of runs merged at once (open files / mapped segments).
+     */
+    public void setFanIn(int fanIn) {
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("fanIn must be at least 2");
+        }
+        this.fanIn = fanIn;
+    }
+
+    public void add(T record) {
+        if (merging) {
+            throw new IllegalStateException("Records cannot be added once the merge has started");
+        }
+        buffer.add(record);
+        size++;
+        if (buffer.size() >= maxRecordsInMemory) {
+            spill();
+        }
+    }
+
+    public void addAll(Collection<? extends T> records) {
+        for (T record : records) {
+            add(record);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Number of runs spilled to disk so far.
+     */
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * Sorted records, read once. Nothing touches the disk when all records fit in memory.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        if (merging) {
+            throw new IllegalStateException("Sorted records can only be read once");
+        }
+        merging = true;
+        if (runs.isEmpty()) {
+            buffer.sort(order);
+            Iterator<T> it = buffer.iterator();
+            buffer = new ArrayList<>();
+            return it;
+        }
+        try {
+            if (!buffer.isEmpty()) {
+                spill();
+            }
+            buffer = null;
+            while (runs.size() > fanIn) {
+                mergePass();
+            }
+            List<Run> all = new ArrayList<>(runs);
+            return new MergeIterator(all);
+        } catch (IOException e) {
+            throw new RuntimeException("Error merging sorted runs", e);
+        }
+    }
+
+    /**
+     * Feeds the sorted records to {@code consumer} in lists of {@code chunkSize},
+     * e.g. {@code ExportSession::append}. Each list is a new instance.
+     */
+    public void forEachChunk(int chunkSize, Consumer<List<T>> consumer) {
+        List<T> chunk = new ArrayList<>(chunkSize);
+        for (T record : this) {
+            chunk.add(record);
+            if (chunk.size() == chunkSize) {
+                consumer.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+    }
+
+    // Sort buffer rồi ghi ra 1 run
+    private void spill() {
+        buffer.sort(order);
+        try {
+            runs.add(writeRun(buffer.iterator(), buffer.size()));
+        } catch (IOException e) {
+            throw new RuntimeException("Error spilling sorted run", e);
+        }
+        buffer.clear();
+    }
+
+    private Run writeRun(Iterator<T> records, long count) throws IOException {
+        Path file = tempDir != null
+                ? Files.createTempFile(tempDir, "sort-run-", ".bin")
+                : Files.createTempFile("sort-run-", ".bin");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), WRITE_BUFFER_SIZE))) {
+            while (records.hasNext()) {
+                codec.write(records.next(), out);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        log.debug("Spilled {} records to {}", count, file);
+        return new Run(file, count);
+    }
+
+    // Gộp từng nhóm fanIn run liền nhau, giữ thứ tự run để sort vẫn ổn định
+    private void mergePass() throws IOException {
+        List<Run> merged = new ArrayList<>();
+        for (int from = 0; from < runs.size(); from += fanIn) {
+            List<Run> group = runs.subList(from, Math.min(from + fanIn, runs.size()));
+            if (group.size() == 1) {
+                merged.add(group.get(0));
+                continue;
+            }
+            long count = 0;
+            for (Run run : group) {
+                count += run.count;
+            }
+            merged.add(writeRun(new MergeIterator(group), count));
+            for (Run run : group) {
+                Files.deleteIfExists(run.file);
+            }
+        }
+        runs.clear();
+        runs.addAll(merged);
+    }
+
+    /**
+     * Deletes the run files. Safe to call more than once.
+     */
+    @Override
+    public void close() {
+        for (RunCursor cursor : new ArrayList<>(openCursors)) {
+            cursor.close();
+        }
+        for (Run run : runs) {
+            try {
+                Files.deleteIfExists(run.file);
+            } catch (IOException e) {
+                log.warn("Cannot delete sort run {}", run.file, e);
+            }
+        }
+        runs.clear();
+        buffer = null;
+    }
+
+    private record Run(Path file, long count) {
+    }
+
+    private final class RunCursor {
+
+        private final int index;
+        private final DataInputStream in;
+        private long remaining;
+        private T head;
+
+        RunCursor(int index, Run run) throws IOException {
+            this.index = index;
+            this.in = new DataInputStream(new MappedRunInputStream(run.file));
+            this.remaining = run.count;
+            openCursors.add(this);
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                close();
+                return false;
+            }
+            head = codec.read(in);
+            remaining--;
+            return true;
+        }
+
+        void close() {
+            head = null;
+            try {
+                in.close();
+            } catch (IOException ignore) {
+            }
+            openCursors.remove(this);
+        }
+    }
+
+    private final class MergeIterator implements Iterator<T> {
+
+        private final PriorityQueue<RunCursor> heap;
+
+        MergeIterator(List<Run> group) throws IOException {
+            // Cùng key: run trước ra trước → giữ thứ tự thêm vào
+            heap = new PriorityQueue<>(Math.max(1, group.size()), (a, b) -> {
+                int c = order.compare(a.head, b.head);
+                return c != 0 ? c : Integer.compare(a.index, b.index);
+            });
+            for (int i = 0; i < group.size(); i++) {
+                RunCursor cursor = new RunCursor(i, group.get(i));
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heap.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            RunCursor cursor = heap.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            T record = cursor.head;
+            try {
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading sorted run", e);
+            }
+            return record;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.excel.sort;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential stream over a memory-mapped run file. The file is mapped one
+ * segment at a time, so runs larger than 2 GB work and only the pages being
+ * read stay resident (page cache, not heap).
+ */
+final class MappedRunInputStream extends InputStream {
+
+    // 64 MB / segment
+    private static final long SEGMENT_SIZE = 64L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private long segmentStart;
+    private MappedByteBuffer segment;
+
+    MappedRunInputStream(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        map(0);
+    }
+
+    private void map(long position) throws IOException {
+        segmentStart = position;
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+    }
+
+    // Hết segment: map segment tiếp theo
+    private boolean ensure() throws IOException {
+        if (segment.hasRemaining()) {
+            return true;
+        }
+        long next = segmentStart + segment.capacity();
+        if (next >= size) {
+            return false;
+        }
+        map(next);
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return ensure() ? segment.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensure()) {
+            return -1;
+        }
+        int n = Math.min(len, segment.remaining());
+        segment.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.excel.sort;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary form of a record in the spill files of {@link ExternalSorter}.
+ * {@link #read} must consume exactly the bytes written by {@link #write}.
+ */
+public interface RecordCodec<T> {
+
+    void write(T record, DataOutput out) throws IOException;
+
+    T read(DataInput in) throws IOException;
+}
@@ -0,0 +1,102 @@
+package com.example.demo.jmh;
+
+import com.example.demo.dto.Student;
+import com.example.demo.excel.ExcelRowWriter;
+import com.example.demo.excel.mapping.ColumnMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled {@code @ExcelColumn} mapping vs the hand-written writeDataRow it replaces.
+ * Rows go to a Blackhole writer so only the mapping cost is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ColumnMappingBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    private Student[] students;
+    private ColumnMapping<Student> mapping;
+    private BlackholeRowWriter row;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        students = new Student[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            students[i] = new Student("Student" + i, new BigDecimal(1000 + i), i);
+        }
+        mapping = ColumnMapping.of(Student.class);
+        row = new BlackholeRowWriter(blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void handWritten() {
+        for (Student s : students) {
+            row.setString(0, s.getName());
+            row.setNumber(1, s.getSalary().doubleValue());
+            row.setNumber(2, s.getAge());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void compiledMapping() {
+        for (Student s : students) {
+            mapping.write(s, row);
+        }
+    }
+
+    private static final class BlackholeRowWriter implements ExcelRowWriter {
+
+        private final Blackhole blackhole;
+
+        private BlackholeRowWriter(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void setString(int column, String value) {
+            blackhole.consume(value);
+        }
+
+        @Override
+        public void setNumber(int column, double value) {
+            blackhole.consume(value);
+        }
+
+        @Override
+        public void setNumber(int column, long value) {
+            blackhole.consume(value);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ColumnMappingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
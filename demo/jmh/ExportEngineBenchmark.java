@@ -0,0 +1,92 @@
+package com.example.demo.jmh;
+
+import com.example.demo.batch1.StudentExcelExportService;
+import com.example.demo.dto.Student;
+import com.example.demo.excel.ExportEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SXSSF vs STREAMING_XML on the student export.
+ * Score = rows/sec; with the GC profiler, gc.alloc.rate.norm = bytes allocated per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportEngineBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int CHUNK = 1_000;
+
+    @Param({"SXSSF", "STREAMING_XML"})
+    private ExportEngine engine;
+
+    private StudentExcelExportService service;
+    private List<List<Student>> chunks;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        service = new StudentExcelExportService();
+        service.setEngine(engine);
+
+        chunks = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i += CHUNK) {
+            List<Student> chunk = new ArrayList<>(CHUNK);
+            for (int j = i; j < i + CHUNK; j++) {
+                chunk.add(new Student("Student" + j, new BigDecimal(1000 + j), j));
+            }
+            chunks.add(chunk);
+        }
+        target = Files.createTempFile("bench-", ".xlsx");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(target);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void export() {
+        service.startExport();
+        for (List<Student> chunk : chunks) {
+            service.append(chunk);
+        }
+        service.finish(target.toString());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExportEngineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.demo.jmh;
+
+import com.example.demo.batch1.StudentExcelExportService;
+import com.example.demo.dto.Student;
+import com.example.demo.excel.BaseExcelExportService;
+import com.example.demo.excel.ExcelRowWriter;
+import com.example.demo.excel.ExcelTemplate;
+import com.example.demo.excel.ExcelTemplateRegistry;
+import com.example.demo.excel.ExportEngine;
+import com.example.demo.excel.ExportFormat;
+import com.example.demo.excel.ExportSession;
+import com.example.demo.excel.SxssfTuner;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage-by-stage numbers for {@link BaseExcelExportService} on the SXSSF engine:
+ * <ul>
+ *     <li>{@code templateLoad}: parse of the template (registry miss)</li>
+ *     <li>{@code open}: template cache hit + header clone + dispose</li>
+ *     <li>{@code append}: rows/sec; with the GC profiler, gc.alloc.rate.norm = bytes per row</li>
+ *     <li>{@code finish}: time to write the workbook; {@code fileBytes} = final file size</li>
+ * </ul>
+ * Datasets: {@code student} (3 columns, mapped DTO), {@code strings-N} / {@code numbers-N}
+ * (N columns of text / numbers). Results go to JSON, see {@link #main(String[])}
+ * and {@link JmhRegressionCheck}.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportPipelineBenchmark {
+
+    static final int ROWS = 50_000;
+    private static final int CHUNK = 1_000;
+
+    @Param({"student", "strings-10", "numbers-10", "strings-50", "numbers-50"})
+    String dataset;
+
+    @Param({"100", "1000", "10000"})
+    int window;
+
+    @Param({"true", "false"})
+    boolean compressTempFiles;
+
+    Pipeline<?> pipeline;
+    Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pipeline = Pipeline.of(dataset);
+        // min = max = window, không bao giờ chạy in-memory
+        pipeline.exporter.setSxssfTuner(new SxssfTuner(0.10, window, window, 0, compressTempFiles, "", Long.MAX_VALUE));
+        target = Files.createTempFile("bench-pipeline-", ".xlsx");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(target);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ExcelTemplate templateLoad() {
+        pipeline.registry.invalidateAll();
+        return pipeline.registry.get(pipeline.exporter.getClass(), Pipeline.TEMPLATE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void open() {
+        // Chỉ đo clone header + dispose
+        pipeline.open().close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(ROWS)
+    public void append(AppendState state) {
+        pipeline.appendAll(state.session);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void finish(FinishState state, FileSize size) throws IOException {
+        state.session.finish(target.toString());
+        size.fileBytes = Files.size(target);
+    }
+
+    /**
+     * Fresh session for every {@code append} invocation, finished outside the measurement.
+     */
+    @State(Scope.Thread)
+    public static class AppendState {
+
+        ExportSession<?> session;
+
+        @Setup(Level.Invocation)
+        public void open(ExportPipelineBenchmark bench) {
+            session = bench.pipeline.open();
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() {
+            session.close();
+        }
+    }
+
+    /**
+     * Session with all rows appended, so {@code finish} measures only the write.
+     */
+    @State(Scope.Thread)
+    public static class FinishState {
+
+        ExportSession<?> session;
+
+        @Setup(Level.Invocation)
+        public void fill(ExportPipelineBenchmark bench) {
+            session = bench.pipeline.open();
+            bench.pipeline.appendAll(session);
+        }
+
+        @TearDown(Level.Invocation)
+        public void close() {
+            session.close();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class FileSize {
+
+        public long fileBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            fileBytes = 0;
+        }
+    }
+
+    /**
+     * Exporter + pre-built rows of one dataset.
+     */
+    static final class Pipeline<T> {
+
+        static final String TEMPLATE = "/templates/student_template.xlsx";
+
+        final BaseExcelExportService<T> exporter;
+        final List<List<T>> chunks;
+        final ExcelTemplateRegistry registry = new ExcelTemplateRegistry();
+
+        private Pipeline(BaseExcelExportService<T> exporter, List<List<T>> chunks) {
+            this.exporter = exporter;
+            this.chunks = chunks;
+            exporter.setEngine(ExportEngine.SXSSF);
+            exporter.setTemplateRegistry(registry);
+        }
+
+        static Pipeline<?> of(String dataset) {
+            if (dataset.equals("student")) {
+                List<List<Student>> chunks = new ArrayList<>();
+                for (int i = 1; i <= ROWS; i += CHUNK) {
+                    List<Student> chunk = new ArrayList<>(CHUNK);
+                    for (int j = i; j < i + CHUNK; j++) {
+                        chunk.add(new Student("Student" + j, new BigDecimal(1000 + j), j));
+                    }
+                    chunks.add(chunk);
+                }
+                return new Pipeline<>(new StudentExcelExportService(), chunks);
+            }
+
+            // strings-10, numbers-50, ...
+            boolean strings = dataset.startsWith("strings-");
+            int columns = Integer.parseInt(dataset.substring(dataset.indexOf('-') + 1));
+            List<List<Object[]>> chunks = new ArrayList<>();
+            for (int i = 1; i <= ROWS; i += CHUNK) {
+                List<Object[]> chunk = new ArrayList<>(CHUNK);
+                for (int j = i; j < i + CHUNK; j++) {
+                    Object[] row = new Object[columns];
+                    for (int c = 0; c < columns; c++) {
+                        row[c] = strings ? "Value " + j + "-" + c : (Object) ((long) j * 31 + c);
+                    }
+                    chunk.add(row);
+                }
+                chunks.add(chunk);
+            }
+            return new Pipeline<>(new SyntheticExporter(), chunks);
+        }
+
+        ExportSession<T> open() {
+            return exporter.openSession(null, ExportFormat.XLSX, ROWS);
+        }
+
+        @SuppressWarnings("unchecked")
+        void appendAll(ExportSession<?> session) {
+            ExportSession<T> typed = (ExportSession<T>) session;
+            for (List<T> chunk : chunks) {
+                typed.append(chunk);
+            }
+        }
+    }
+
+    /**
+     * N-column rows (String or Long cells) on the student template.
+     */
+    static final class SyntheticExporter extends BaseExcelExportService<Object[]> {
+
+        @Override
+        protected String getTemplatePath() {
+            return Pipeline.TEMPLATE;
+        }
+
+        @Override
+        protected String getSheetName() {
+            return "Bench";
+        }
+
+        @Override
+        protected void writeDataRow(Object[] data, ExcelRowWriter row) {
+            for (int c = 0; c < data.length; c++) {
+                if (data[c] instanceof Long n) {
+                    row.setNumber(c, n.longValue());
+                } else {
+                    row.setString(c, (String) data[c]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the results as JSON to {@code args[0]} (default jmh-export-pipeline.json).
+     */
+    public static void main(String[] args) throws RunnerException {
+        String result = args.length > 0 ? args[0] : "jmh-export-pipeline.json";
+        new Runner(new OptionsBuilder()
+                .include(ExportPipelineBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.jmh;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files and exits with 1 when a benchmark got worse
+ * than the tolerance: lower throughput, higher average time or more bytes per op
+ * (gc.alloc.rate.norm).
+ * <pre>
+ * java ... JmhRegressionCheck baseline.json current.json [tolerancePercent=10]
+ * </pre>
+ */
+public class JmhRegressionCheck {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhRegressionCheck <baseline.json> <current.json> [tolerancePercent]");
+            System.exit(2);
+        }
+        double tolerance = (args.length > 2 ? Double.parseDouble(args[2]) : 10) / 100.0;
+
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> e : current.entrySet()) {
+            JsonNode before = baseline.get(e.getKey());
+            if (before == null) {
+                System.out.printf("NEW   %s%n", e.getKey());
+                continue;
+            }
+            JsonNode after = e.getValue();
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            regressions += compare(e.getKey(), before.path("primaryMetric"), after.path("primaryMetric"),
+                    higherIsBetter, tolerance);
+
+            JsonNode allocBefore = secondary(before, ALLOC_NORM);
+            JsonNode allocAfter = secondary(after, ALLOC_NORM);
+            if (allocBefore != null && allocAfter != null) {
+                regressions += compare(e.getKey() + " [" + ALLOC_NORM + "]", allocBefore, allocAfter, false, tolerance);
+            }
+        }
+
+        System.out.printf("%d regression(s), tolerance %.0f%%%n", regressions, tolerance * 100);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static int compare(String name, JsonNode before, JsonNode after, boolean higherIsBetter, double tolerance) {
+        double b = before.path("score").asDouble();
+        double a = after.path("score").asDouble();
+        if (b == 0) {
+            return 0;
+        }
+        double change = (a - b) / b;
+        boolean worse = higherIsBetter ? change < -tolerance : change > tolerance;
+        System.out.printf("%s %s: %.3f -> %.3f %s (%+.1f%%)%n",
+                worse ? "WORSE" : "ok   ", name, b, a, after.path("scoreUnit").asText(), change * 100);
+        return worse ? 1 : 0;
+    }
+
+    // Khóa = benchmark + params, ví dụ ExportPipelineBenchmark.append{dataset=student, window=100}
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new HashMap<>();
+        for (JsonNode run : MAPPER.readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> it = run.path("params").fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> p = it.next();
+                params.put(p.getKey(), p.getValue().asText());
+            }
+            results.put(run.path("benchmark").asText() + params, run);
+        }
+        return results;
+    }
+
+    // JMH cũ đặt tên "·gc.alloc.rate.norm"
+    private static JsonNode secondary(JsonNode run, String name) {
+        Iterator<Map.Entry<String, JsonNode>> it = run.path("secondaryMetrics").fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> m = it.next();
+            if (m.getKey().replace("·", "").equals(name)) {
+                return m.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.excel;
+
+import com.example.demo.batch1.StudentExcelExportService;
+import com.example.demo.dto.Student;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ExcelItemReaderTest {
+
+    private static final int ROWS = 2_500;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackWhatEachEngineWrote() throws Exception {
+        for (ExportEngine engine : ExportEngine.values()) {
+            Path file = export(engine);
+
+            ExcelItemReader<Student> reader = reader(file);
+            reader.open(new ExecutionContext());
+            List<Student> read = new ArrayList<>();
+            for (Student student = reader.read(); student != null; student = reader.read()) {
+                read.add(student);
+            }
+            reader.close();
+
+            assertEquals(ROWS, read.size(), engine.name());
+            for (int i = 0; i < ROWS; i++) {
+                assertStudent(i, read.get(i));
+            }
+        }
+    }
+
+    @Test
+    void restartContinuesAfterLastCommittedRow() throws Exception {
+        Path file = export(ExportEngine.STREAMING_XML);
+        ExecutionContext context = new ExecutionContext();
+
+        // Lần 1: commit sau 1000 dòng, đọc thêm 200 dòng rồi lỗi
+        ExcelItemReader<Student> first = reader(file);
+        first.open(context);
+        for (int i = 0; i < 1_000; i++) {
+            first.read();
+        }
+        first.update(context);
+        for (int i = 0; i < 200; i++) {
+            first.read();
+        }
+        first.close();
+
+        // Lần 2: tiếp từ dòng 1001, không đọc lại dòng đã commit
+        ExcelItemReader<Student> second = reader(file);
+        second.open(context);
+        int expected = 1_000;
+        for (Student student = second.read(); student != null; student = second.read()) {
+            assertStudent(expected++, student);
+        }
+        second.close();
+        assertEquals(ROWS, expected);
+    }
+
+    @Test
+    void emptyExportReadsNothing() throws Exception {
+        Path file = dir.resolve("empty.xlsx");
+        StudentExcelExportService exporter = new StudentExcelExportService();
+        try (ExportSession<Student> session = exporter.openSession(null, ExportFormat.XLSX, 0)) {
+            session.finish(file.toString());
+        }
+
+        ExcelItemReader<Student> reader = reader(file);
+        reader.open(new ExecutionContext());
+        assertNull(reader.read());
+        reader.close();
+    }
+
+    private Path export(ExportEngine engine) {
+        Path file = dir.resolve("students-" + engine + ".xlsx");
+        StudentExcelExportService exporter = new StudentExcelExportService();
+        exporter.setEngine(engine);
+        try (ExportSession<Student> session = exporter.openSession(null, ExportFormat.XLSX, ROWS)) {
+            List<Student> page = new ArrayList<>();
+            for (int i = 0; i < ROWS; i++) {
+                page.add(student(i));
+                if (page.size() == 1_000) {
+                    session.append(page);
+                    page = new ArrayList<>();
+                }
+            }
+            session.append(page);
+            session.finish(file.toString());
+        }
+        return file;
+    }
+
+    private static ExcelItemReader<Student> reader(Path file) {
+        ExcelItemReader<Student> reader = new ExcelItemReader<>(Student.class);
+        reader.setResource(new FileSystemResource(file));
+        return reader;
+    }
+
+    private static Student student(int i) {
+        // Có cả ô trống (age null) và chuỗi cần escape
+        return new Student("Student <" + i + "> & co", BigDecimal.valueOf(i).movePointLeft(2),
+                i % 10 == 0 ? null : i);
+    }
+
+    private static void assertStudent(int i, Student actual) {
+        Student expected = student(i);
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(0, expected.getSalary().compareTo(actual.getSalary()), "salary of row " + i);
+        assertEquals(expected.getAge(), actual.getAge());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.excel;
+
+import com.example.demo.batch1.StudentCodec;
+import com.example.demo.batch1.StudentExcelExportService;
+import com.example.demo.dto.Student;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExcelItemWriterTest {
+
+    private static final int ROWS = 200;
+    private static final int CHUNK = 30;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restartRebuildsPartFinishedAfterLastCommit() throws Exception {
+        ExecutionContext context = new ExecutionContext();
+
+        // Lần 1: commit 3 chunk (90 dòng); chunk 4 làm đầy part 1 rồi lỗi trước commit
+        ExcelItemWriter<Student> first = writer();
+        first.open(context);
+        for (int offset = 0; offset < 3 * CHUNK; offset += CHUNK) {
+            first.write(chunk(offset));
+            first.update(context);
+        }
+        first.write(chunk(3 * CHUNK));
+        assertTrue(Files.exists(dir.resolve("students-part-0001.journal")),
+                "journal of a part finished after the last commit must be kept");
+        first.close();
+
+        // Lần 2: dựng lại 90 dòng của part 1 từ journal, ghi tiếp từ dòng 90
+        ExcelItemWriter<Student> second = writer();
+        second.open(context);
+        for (int offset = 3 * CHUNK; offset < ROWS; offset += CHUNK) {
+            second.write(chunk(offset));
+            second.update(context);
+        }
+        StepExecution step = new StepExecution("studentStep", new JobExecution(1L));
+        step.setStatus(BatchStatus.COMPLETED);
+        assertNull(second.afterStep(step));
+        second.close();
+
+        assertEquals(BatchStatus.COMPLETED, step.getStatus());
+        ExecutionContext result = step.getExecutionContext();
+        assertEquals("120,80", result.getString("ExcelItemWriter." + ExcelItemWriter.COMPLETED_PARTS));
+        String files = result.getString("ExcelItemWriter." + ExcelItemWriter.OUTPUT_FILES);
+        assertEquals("students-part-0001.xlsx,students-part-0002.xlsx", files);
+
+        List<Student> read = new ArrayList<>();
+        for (String file : files.split(",")) {
+            ExcelItemReader<Student> reader = new ExcelItemReader<>(Student.class);
+            reader.setResource(new FileSystemResource(dir.resolve(file)));
+            reader.open(new ExecutionContext());
+            for (Student s = reader.read(); s != null; s = reader.read()) {
+                read.add(s);
+            }
+            reader.close();
+        }
+        assertEquals(ROWS, read.size());
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals("Student" + i, read.get(i).getName());
+        }
+        try (Stream<Path> left = Files.list(dir)) {
+            assertTrue(left.noneMatch(p -> p.toString().endsWith(".journal")), "journals are deleted once complete");
+        }
+    }
+
+    @Test
+    void singlePartIsRenamedToBaseFile() throws Exception {
+        ExcelItemWriter<Student> writer = writer();
+        writer.setPartRows(1_000);
+        ExecutionContext context = new ExecutionContext();
+        writer.open(context);
+        for (int offset = 0; offset < ROWS; offset += CHUNK) {
+            writer.write(chunk(offset));
+            writer.update(context);
+        }
+        StepExecution step = new StepExecution("studentStep", new JobExecution(1L));
+        writer.afterStep(step);
+        writer.close();
+
+        assertTrue(Files.exists(dir.resolve("students.xlsx")));
+        assertEquals("students.xlsx", step.getExecutionContext().getString("ExcelItemWriter." + ExcelItemWriter.OUTPUT_FILES));
+        assertEquals(ROWS, step.getExecutionContext().getLong("ExcelItemWriter." + ExcelItemWriter.ROW_OFFSET));
+    }
+
+    private ExcelItemWriter<Student> writer() {
+        ExcelItemWriter<Student> writer = new ExcelItemWriter<>(new StudentExcelExportService(), StudentCodec.INSTANCE);
+        writer.setBaseFile(dir.resolve("students.xlsx"));
+        writer.setPartRows(100);
+        return writer;
+    }
+
+    private static Chunk<Student> chunk(int offset) {
+        Chunk<Student> chunk = new Chunk<>();
+        for (int i = offset; i < Math.min(offset + CHUNK, ROWS); i++) {
+            chunk.add(new Student("Student" + i, BigDecimal.valueOf(i), i));
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.excel;
+
+import com.example.demo.batch1.StudentExcelExportService;
+import com.example.demo.dto.Student;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class ExportJobServiceTest {
+
+    private static final int ROWS = 250;
+
+    @TempDir
+    Path dir;
+
+    private ExportJobService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ExportJobService(dir.toString(), 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void resumesAfterLastCompletedPart() throws Exception {
+        StudentExcelExportService exporter = new StudentExcelExportService();
+        ExportJobRequest request = ExportJobRequest.builder().id("students").partRows(100).pageSize(50).build();
+
+        // Lần 1: lỗi giữa part 2
+        FailingSource failing = new FailingSource(150);
+        service.submit(exporter, failing, request);
+        assertEquals(ExportJobState.FAILED, await("students").getState());
+        assertTrue(Files.exists(dir.resolve("students").resolve("checkpoint.json")));
+
+        // Lần 2: chạy tiếp từ dòng 100, không ghi lại part 1
+        FailingSource source = new FailingSource(Long.MAX_VALUE);
+        service.submit(exporter, source, request);
+        ExportJobStatus status = await("students");
+        assertEquals(ExportJobState.COMPLETED, status.getState());
+        assertEquals(100, source.offsets.get(0).longValue());
+
+        ExportManifest manifest = new ObjectMapper().readValue(Path.of(status.getManifestFile()).toFile(), ExportManifest.class);
+        assertEquals(ROWS, manifest.getTotalRows());
+        List<Long> rows = new ArrayList<>();
+        for (ExportManifest.Part part : manifest.getParts()) {
+            rows.add(part.getRows());
+            assertTrue(Files.exists(dir.resolve("students").resolve(part.getFileName())));
+        }
+        assertEquals(List.of(100L, 100L, 50L), rows);
+        assertFalse(Files.exists(dir.resolve("students").resolve("checkpoint.json")));
+    }
+
+    @Test
+    void rejectsResumeWithDifferentParameters() {
+        StudentExcelExportService exporter = new StudentExcelExportService();
+        ExportJobRequest request = ExportJobRequest.builder().id("students").partRows(100).pageSize(50).build();
+        service.submit(exporter, new FailingSource(150), request);
+        assertEquals(ExportJobState.FAILED, await("students").getState());
+
+        ExportJobRequest otherSize = ExportJobRequest.builder().id("students").partRows(80).pageSize(50).build();
+        assertThrows(IllegalArgumentException.class,
+                () -> service.submit(exporter, new FailingSource(Long.MAX_VALUE), otherSize));
+        ExportJobRequest otherFormat = ExportJobRequest.builder().id("students").partRows(100).pageSize(50)
+                .format(ExportFormat.CSV).build();
+        assertThrows(IllegalArgumentException.class,
+                () -> service.submit(exporter, new FailingSource(Long.MAX_VALUE), otherFormat));
+
+        // Job lỗi vẫn giữ nguyên, không bị thay bởi request bị từ chối
+        assertEquals(ExportJobState.FAILED, service.status("students").getState());
+    }
+
+    private ExportJobStatus await(String id) {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            ExportJobStatus status = service.status(id);
+            if (status.getState() != ExportJobState.QUEUED && status.getState() != ExportJobState.RUNNING) {
+                return status;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return fail("Export job " + id + " did not finish");
+    }
+
+    /**
+     * {@link #ROWS} students; throws when asked for rows at or past {@code failAt}.
+     */
+    private static final class FailingSource implements ExportSource<Student> {
+
+        private final long failAt;
+        private final List<Long> offsets = new ArrayList<>();
+
+        FailingSource(long failAt) {
+            this.failAt = failAt;
+        }
+
+        @Override
+        public List<Student> fetch(long offset, int limit) {
+            if (offset >= failAt) {
+                throw new IllegalStateException("Source down at row " + offset);
+            }
+            offsets.add(offset);
+            List<Student> page = new ArrayList<>();
+            for (long i = offset; i < Math.min(offset + limit, ROWS); i++) {
+                page.add(new Student("Student" + i, BigDecimal.valueOf(1000 + i), (int) i));
+            }
+            return page;
+        }
+
+        @Override
+        public long count() {
+            return ROWS;
+        }
+    }
+}
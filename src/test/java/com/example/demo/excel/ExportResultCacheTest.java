@@ -0,0 +1,173 @@
+package com.example.demo.excel;
+
+import com.example.demo.batch1.StudentExcelExportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportResultCacheTest {
+
+    private static final int THREADS = 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentRequestsGenerateOnce() throws Exception {
+        ExportResultCache cache = cache(10);
+        AtomicInteger generations = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try (FileChannel file = cache.getOrCreate("k1", ExportFormat.CSV, ExportResultCacheTest.class, target -> {
+                        generations.incrementAndGet();
+                        sleep(200);
+                        Files.writeString(target, "content-1");
+                    })) {
+                        return read(file);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("content-1", result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, generations.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(THREADS - 1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void invalidationDuringGenerationIsNotCached() throws Exception {
+        ExportResultCache cache = cache(10);
+        CountDownLatch generating = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        AtomicInteger generations = new AtomicInteger();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> first = executor.submit(() -> {
+                try (FileChannel file = cache.getOrCreate("k1", ExportFormat.CSV, ExportResultCacheTest.class, target -> {
+                    generations.incrementAndGet();
+                    generating.countDown();
+                    await(invalidated);
+                    Files.writeString(target, "stale");
+                })) {
+                    return read(file);
+                }
+            });
+            assertTrue(generating.await(10, TimeUnit.SECONDS));
+            cache.invalidate(ExportResultCacheTest.class);
+            invalidated.countDown();
+
+            // Request đang chạy vẫn nhận file, nhưng file không vào cache
+            assertEquals("stale", first.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, cache.size());
+
+        try (FileChannel file = cache.getOrCreate("k1", ExportFormat.CSV, ExportResultCacheTest.class, target -> {
+            generations.incrementAndGet();
+            Files.writeString(target, "fresh");
+        })) {
+            assertEquals("fresh", read(file));
+        }
+        assertEquals(2, generations.get());
+    }
+
+    @Test
+    void evictedFileStaysReadableThroughOpenChannel() throws Exception {
+        ExportResultCache cache = cache(1);
+        try (FileChannel first = cache.getOrCreate("k1", ExportFormat.CSV, ExportResultCacheTest.class,
+                target -> Files.writeString(target, "first"))) {
+            // k2 đẩy k1 ra khỏi cache (max 1 entry) trong lúc k1 đang được đọc
+            cache.getOrCreate("k2", ExportFormat.CSV, ExportResultCacheTest.class,
+                    target -> Files.writeString(target, "second")).close();
+            assertEquals(1, cache.getEvictionCount());
+            assertEquals("first", read(first));
+        }
+    }
+
+    @Test
+    void keySeparatesParametersAndSinkOptions() throws Exception {
+        ExportResultCache cache = cache(10);
+        StudentExcelExportService exporter = new StudentExcelExportService();
+        String base = cache.key(exporter, ExportFormat.XLSX, Map.of("rows", 10));
+
+        // Giá trị chứa dấu phân cách không được trùng với map khác
+        assertNotEquals(cache.key(exporter, ExportFormat.XLSX, Map.of("a", "1\nrows=5")),
+                cache.key(exporter, ExportFormat.XLSX, Map.of("a", "1", "rows", 5)));
+        assertEquals(base, cache.key(exporter, ExportFormat.XLSX, Map.of("rows", 10)));
+
+        exporter.setAutoWidth(true);
+        String autoWidth = cache.key(exporter, ExportFormat.XLSX, Map.of("rows", 10));
+        assertNotEquals(base, autoWidth);
+
+        exporter.setCompression(ExportCompression.storeOnly());
+        String stored = cache.key(exporter, ExportFormat.XLSX, Map.of("rows", 10));
+        assertNotEquals(autoWidth, stored);
+
+        exporter.setMaxRowsPerSheet(1_000);
+        assertNotEquals(stored, cache.key(exporter, ExportFormat.XLSX, Map.of("rows", 10)));
+    }
+
+    private ExportResultCache cache(int maxEntries) throws IOException {
+        ExportResultCache cache = new ExportResultCache(dir.toString(), Long.MAX_VALUE, maxEntries);
+        cache.init();
+        return cache;
+    }
+
+    private static String read(FileChannel file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) file.size());
+        while (buffer.hasRemaining() && file.read(buffer, buffer.position()) >= 0) {
+            // Đọc tới hết file
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
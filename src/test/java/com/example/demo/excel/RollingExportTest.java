@@ -0,0 +1,54 @@
+package com.example.demo.excel;
+
+import com.example.demo.batch1.StudentExcelExportService;
+import com.example.demo.dto.Student;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RollingExportTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void multiDotExtensionComesFromFormat() {
+        StudentExcelExportService exporter = new StudentExcelExportService();
+        ExportManifest manifest;
+        try (ExportSession<Student> session = exporter.openSession(null, ExportFormat.CSV_GZIP, 0)) {
+            session.enableRolling(dir.resolve("students.csv.gz"), RollingPolicy.byRows(50));
+            List<Student> rows = new ArrayList<>();
+            for (int i = 0; i < 120; i++) {
+                rows.add(new Student("Student" + i, BigDecimal.valueOf(i), i));
+            }
+            session.append(rows);
+            manifest = session.completeRolling();
+        }
+
+        // students.csv.gz → students-part-0001.csv.gz, không phải students.csv-part-0001.gz
+        assertEquals("students", manifest.getBaseName());
+        List<String> names = new ArrayList<>();
+        manifest.getParts().forEach(part -> names.add(part.getFileName()));
+        assertEquals(List.of("students-part-0001.csv.gz", "students-part-0002.csv.gz", "students-part-0003.csv.gz"), names);
+        assertEquals(120, manifest.getTotalRows());
+        assertTrue(Files.exists(dir.resolve("students-manifest.json")));
+        for (String name : names) {
+            assertTrue(Files.exists(dir.resolve(name)), name);
+        }
+    }
+
+    @Test
+    void baseNameStripsOnlyTheFormatExtension() {
+        assertEquals("students", RollingExport.baseName("students.csv.gz", ExportFormat.CSV_GZIP));
+        assertEquals("report.2024", RollingExport.baseName("report.2024.xlsx", ExportFormat.XLSX));
+        assertEquals("students", RollingExport.baseName("students", ExportFormat.CSV));
+    }
+}
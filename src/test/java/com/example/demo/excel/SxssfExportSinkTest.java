@@ -0,0 +1,64 @@
+package com.example.demo.excel;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SxssfExportSinkTest {
+
+    private static final int IN_MEMORY_MAX_ROWS = 100;
+
+    @Test
+    void rowHintBelowActualRowsStartsFlushing() throws Exception {
+        SxssfTuner tuner = new SxssfTuner(0.10, 10, 50, IN_MEMORY_MAX_ROWS, true, "", Long.MAX_VALUE);
+        ExcelTemplate template = new ExcelTemplateRegistry().get(getClass(), "/templates/student_template.xlsx");
+
+        // Hint 10 dòng nhưng ghi 1000: phải flush, không giữ hết trong heap
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SxssfExportSink sink = new SxssfExportSink(tuner, 10);
+        try {
+            sink.open(template, "Students", null);
+            assertEquals(IN_MEMORY_MAX_ROWS, sink.getRowAccessWindowSize());
+            for (int i = 0; i < 1_000; i++) {
+                ExcelRowWriter row = sink.nextRow();
+                row.setString(0, "Student" + i);
+                row.setNumber(1, (long) i);
+            }
+            assertTrue(tuner.getFlushCount() > 0, "rows past the hint must be flushed");
+            assertTrue(sink.getRowAccessWindowSize() <= 50);
+            sink.finish(out);
+        } finally {
+            sink.close();
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(1_000, sheet.getLastRowNum());
+            assertEquals("Student999", sheet.getRow(1_000).getCell(0).getStringCellValue());
+        }
+    }
+
+    @Test
+    void accurateSmallHintNeverFlushes() throws Exception {
+        SxssfTuner tuner = new SxssfTuner(0.10, 10, 50, IN_MEMORY_MAX_ROWS, true, "", Long.MAX_VALUE);
+        ExcelTemplate template = new ExcelTemplateRegistry().get(getClass(), "/templates/student_template.xlsx");
+
+        SxssfExportSink sink = new SxssfExportSink(tuner, 80);
+        try {
+            sink.open(template, "Students", null);
+            for (int i = 0; i < 80; i++) {
+                sink.nextRow().setString(0, "Student" + i);
+            }
+            sink.finish(new ByteArrayOutputStream());
+        } finally {
+            sink.close();
+        }
+        assertEquals(0, tuner.getFlushCount());
+    }
+}
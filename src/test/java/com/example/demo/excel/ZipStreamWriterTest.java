@@ -0,0 +1,149 @@
+package com.example.demo.excel;
+
+import com.example.demo.batch1.StudentExcelExportService;
+import com.example.demo.dto.Student;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZipStreamWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void entriesReadBackWithZipFile() throws IOException {
+        byte[] sheet = randomText(1_000_000);
+        byte[] styles = "<styleSheet/>".getBytes(StandardCharsets.UTF_8);
+        for (ExportCompression compression : List.of(ExportCompression.DEFAULT,
+                ExportCompression.parallel(Deflater.BEST_SPEED), ExportCompression.storeOnly())) {
+            Path file = dir.resolve("zip-" + compression.hashCode() + ".zip");
+            write(file, compression, sheet, styles);
+
+            try (ZipFile zip = new ZipFile(file.toFile())) {
+                List<String> names = new ArrayList<>();
+                zip.stream().forEach(e -> names.add(e.getName()));
+                assertEquals(List.of("xl/worksheets/sheet1.xml", "xl/styles.xml", "empty.xml"), names);
+                assertArrayEquals(sheet, read(zip, "xl/worksheets/sheet1.xml"));
+                assertArrayEquals(styles, read(zip, "xl/styles.xml"));
+                assertEquals(0, zip.getEntry("empty.xml").getSize());
+            }
+        }
+    }
+
+    @Test
+    void smallEntriesReadBackWithZipInputStream() throws IOException {
+        Path file = dir.resolve("small.zip");
+        try (OutputStream out = Files.newOutputStream(file);
+             ZipStreamWriter zip = new ZipStreamWriter(out, ExportCompression.DEFAULT)) {
+            zip.putNextEntry("a.xml");
+            zip.data().write("<a/>".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry("b.xml");
+            zip.data().write("<b/>".getBytes(StandardCharsets.UTF_8));
+            zip.finish();
+        }
+
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(file))) {
+            assertEquals("a.xml", in.getNextEntry().getName());
+            assertArrayEquals("<a/>".getBytes(StandardCharsets.UTF_8), in.readAllBytes());
+            assertEquals("b.xml", in.getNextEntry().getName());
+            assertArrayEquals("<b/>".getBytes(StandardCharsets.UTF_8), in.readAllBytes());
+            assertNull(in.getNextEntry());
+        }
+    }
+
+    @Test
+    void localHeadersMatchZipOutputStream() throws IOException {
+        Path file = dir.resolve("plain.zip");
+        write(file, ExportCompression.DEFAULT, randomText(1_000), new byte[]{'x'});
+
+        ByteBuffer zip = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        // Size chưa biết: version 20, không có extra ZIP64 trong local header
+        assertEquals(0x04034b50, zip.getInt(0));
+        assertEquals(20, zip.getShort(4));
+        assertEquals(0, zip.getShort(28));
+    }
+
+    @Test
+    void streamingWorkbookReadsBackWithZipInputStream() throws IOException {
+        Path file = dir.resolve("students.xlsx");
+        StudentExcelExportService exporter = new StudentExcelExportService();
+        exporter.setEngine(ExportEngine.STREAMING_XML);
+        try (ExportSession<Student> session = exporter.openSession(null, ExportFormat.XLSX, 10)) {
+            List<Student> rows = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                rows.add(new Student("Student" + i, BigDecimal.valueOf(i), i));
+            }
+            session.append(rows);
+            session.finish(file.toString());
+        }
+
+        // Đọc tuần tự theo local header như các consumer stream của JDK
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(file))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                names.add(entry.getName());
+                byte[] content = in.readAllBytes();
+                if (entry.getName().equals("xl/worksheets/sheet1.xml")) {
+                    assertTrue(new String(content, StandardCharsets.UTF_8).contains("Student9"));
+                }
+            }
+        }
+        assertTrue(names.contains("xl/worksheets/sheet1.xml"), names.toString());
+        assertTrue(names.contains("xl/workbook.xml"), names.toString());
+    }
+
+    private static void write(Path file, ExportCompression compression, byte[] sheet, byte[] styles) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file);
+             ZipStreamWriter zip = new ZipStreamWriter(out, compression)) {
+            zip.putNextEntry("xl/worksheets/sheet1.xml");
+            for (int off = 0; off < sheet.length; off += 7_919) {
+                zip.data().write(sheet, off, Math.min(7_919, sheet.length - off));
+            }
+            zip.closeEntry();
+            // Flush rỗng giữa 2 entry không lỗi
+            zip.data().write(new byte[0], 0, 0);
+            zip.putNextEntry("xl/styles.xml");
+            zip.data().write(styles);
+            zip.putNextEntry("empty.xml");
+            zip.finish();
+        }
+    }
+
+    private static byte[] read(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        try (InputStream in = zip.getInputStream(entry)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] randomText(int length) {
+        Random random = new Random(42);
+        byte[] text = new byte[length];
+        for (int i = 0; i < length; i++) {
+            text[i] = (byte) ('a' + random.nextInt(26));
+        }
+        return text;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.excel.sort;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExternalSorterTest {
+
+    private static final RecordCodec<Item> CODEC = new RecordCodec<>() {
+        @Override
+        public void write(Item item, DataOutput out) throws IOException {
+            out.writeInt(item.key());
+            out.writeInt(item.seq());
+        }
+
+        @Override
+        public Item read(DataInput in) throws IOException {
+            return new Item(in.readInt(), in.readInt());
+        }
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void equalKeysKeepInsertionOrderAcrossMergePasses() {
+        // Ít key khác nhau: nhiều bản ghi bằng nhau nằm rải trên mọi run
+        List<Item> input = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            input.add(new Item(random.nextInt(20), i));
+        }
+        List<Item> expected = new ArrayList<>(input);
+        expected.sort(Comparator.comparingInt(Item::key));
+
+        for (int fanIn : new int[]{2, 3, 64}) {
+            List<Item> sorted = new ArrayList<>();
+            try (ExternalSorter<Item> sorter = new ExternalSorter<>(CODEC, Comparator.comparingInt(Item::key), 97)) {
+                sorter.setTempDir(dir);
+                sorter.setFanIn(fanIn);
+                input.forEach(sorter::add);
+                assertTrue(sorter.getRunCount() > fanIn, "expected merge passes with fanIn " + fanIn);
+                sorter.forEach(sorted::add);
+            }
+            assertEquals(expected, sorted, "fanIn " + fanIn);
+        }
+    }
+
+    @Test
+    void inMemoryAndChunkedOutputAreStable() {
+        List<Item> input = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            input.add(new Item(i % 3, i));
+        }
+        List<Item> expected = new ArrayList<>(input);
+        expected.sort(Comparator.comparingInt(Item::key));
+
+        // Không tràn ra đĩa
+        List<Item> sorted = new ArrayList<>();
+        try (ExternalSorter<Item> sorter = new ExternalSorter<>(CODEC, Comparator.comparingInt(Item::key), 1_000)) {
+            sorter.setTempDir(dir);
+            sorter.addAll(input);
+            assertEquals(0, sorter.getRunCount());
+            sorter.forEach(sorted::add);
+        }
+        assertEquals(expected, sorted);
+
+        // Có run, đọc theo chunk
+        List<Item> chunked = new ArrayList<>();
+        try (ExternalSorter<Item> sorter = new ExternalSorter<>(CODEC, Comparator.comparingInt(Item::key), 40)) {
+            sorter.setTempDir(dir);
+            sorter.addAll(input);
+            sorter.forEachChunk(33, chunk -> {
+                assertTrue(chunk.size() <= 33);
+                chunked.addAll(chunk);
+            });
+        }
+        assertEquals(expected, chunked);
+    }
+
+    @Test
+    void closeDeletesRunFiles() throws IOException {
+        try (ExternalSorter<Item> sorter = new ExternalSorter<>(CODEC, Comparator.comparingInt(Item::key), 10)) {
+            sorter.setTempDir(dir);
+            for (int i = 0; i < 100; i++) {
+                sorter.add(new Item(100 - i, i));
+            }
+            assertTrue(sorter.getRunCount() > 0);
+            // Dừng giữa chừng: close vẫn phải dọn file
+            sorter.iterator().next();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private record Item(int key, int seq) {
+    }
+}